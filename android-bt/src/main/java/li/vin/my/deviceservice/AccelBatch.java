@@ -0,0 +1,58 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A run of consecutive accelerometer samples from {@link DeviceConnection#observeAccel(int)}, in
+ * primitive arrays ready for signal processing. Each batch owns its arrays; nothing is reused.
+ */
+public final class AccelBatch {
+  private final float[] samples;
+  private final boolean[] collisions;
+  private final long[] timestamps;
+  private final int size;
+
+  /*package*/ AccelBatch(float[] samples, boolean[] collisions, long[] timestamps, int size) {
+    this.samples = samples;
+    this.collisions = collisions;
+    this.timestamps = timestamps;
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Every sample's x, y and z, interleaved: sample {@code i} is at {@code [3 * i, 3 * i + 3)}.
+   * Not copied - don't modify.
+   */
+  public @NonNull float[] samples() {
+    return samples;
+  }
+
+  public float x(int i) {
+    return samples[3 * i];
+  }
+
+  public float y(int i) {
+    return samples[3 * i + 1];
+  }
+
+  public float z(int i) {
+    return samples[3 * i + 2];
+  }
+
+  public boolean collision(int i) {
+    return collisions[i];
+  }
+
+  /** In {@link android.os.SystemClock#elapsedRealtimeNanos()} time base. */
+  public long timestampNanos(int i) {
+    return timestamps[i];
+  }
+
+  @Override public String toString() {
+    return "AccelBatch{size=" + size + '}';
+  }
+}
@@ -0,0 +1,65 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+/**
+ * Decodes {@link Uuids#ACCEL} frames into all three axes and the collision flag in one pass,
+ * straight from the bytes and into the same array every time. One per consumer; not thread safe.
+ */
+/*package*/ final class AccelDecoder {
+  private static final String TAG = AccelDecoder.class.getSimpleName();
+  private static final int ASCII_FRAME_LENGTH = 14;
+  private static final int BINARY_FRAME_LENGTH = 4;
+
+  // CHECKSTYLE.OFF: VisibilityModifier
+  /*package*/ final float[] xyz = new float[3];
+  /*package*/ boolean collision;
+  // CHECKSTYLE.ON: VisibilityModifier
+
+  private final byte[] scratch = new byte[ASCII_FRAME_LENGTH];
+  private boolean warned;
+
+  /**
+   * Decode an {@link Params#ACCEL_RAW} frame, as the device service hands them over. Only the
+   * ASCII format survives being read as a string - a binary frame is cut short at a 0 byte and
+   * mangled past 0x7f - so anything else is rejected rather than misread.
+   */
+  /*package*/ boolean decode(@Nullable String frame) {
+    if (frame == null || frame.length() != ASCII_FRAME_LENGTH) return reject(frame);
+    for (int i = 0; i < ASCII_FRAME_LENGTH; i++) {
+      final char c = frame.charAt(i);
+      if (c > 0x7f) return reject(frame);
+      scratch[i] = (byte) c;
+    }
+    return decode(scratch, ASCII_FRAME_LENGTH);
+  }
+
+  // once per decoder, as a device sending the wrong format sends nothing else.
+  private boolean reject(String frame) {
+    if (!warned) {
+      warned = true;
+      Log.w(TAG, "dropping accelerometer frames not in the ASCII format, e.g. '" + frame + "'");
+    }
+    return false;
+  }
+
+  /**
+   * Decode the frame in the first {@code len} bytes of {@code frame} into {@link #xyz} and
+   * {@link #collision}. False, with both left undefined, if it isn't a frame we understand.
+   */
+  /*package*/ boolean decode(@NonNull byte[] frame, int len) {
+    if (len != ASCII_FRAME_LENGTH && len != BINARY_FRAME_LENGTH) return false;
+    try {
+      xyz[0] = ParamAccel.accelConvert(frame, len, 0);
+      xyz[1] = ParamAccel.accelConvert(frame, len, 1);
+      xyz[2] = ParamAccel.accelConvert(frame, len, 2);
+    } catch (NumberFormatException e) {
+      Log.w(TAG, "dropping undecodable accelerometer frame", e);
+      return false;
+    }
+    collision = ParamAccel.collision(frame, len);
+    return true;
+  }
+}
@@ -0,0 +1,29 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives accelerometer samples decoded once per frame, with all three axes and the collision
+ * flag together, without boxing or passing through any Rx operators. Callbacks arrive one at a
+ * time on a binder thread and should return quickly.
+ *
+ * @see DeviceConnection#observeAccel(AccelSink)
+ */
+public interface AccelSink {
+  /**
+   * Called for every accelerometer frame the device service delivers.
+   *
+   * @param xyz the {@link Params#ACCEL_X}, {@link Params#ACCEL_Y} and {@link Params#ACCEL_Z}
+   * values. Reused for the next sample, so copy out what you need to keep.
+   * @param collision the {@link Params#COLLISION} flag.
+   * @param timestampNanos arrival time, in {@link android.os.SystemClock#elapsedRealtimeNanos()}
+   * time base.
+   */
+  void onSample(@NonNull float[] xyz, boolean collision, long timestampNanos);
+
+  /** Called once if the underlying op completes. No more samples follow. */
+  void onCompleted();
+
+  /** Called once if the underlying op fails. No more samples follow. */
+  void onError(@NonNull Throwable e);
+}
@@ -0,0 +1,103 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Action1;
+
+/**
+ * What a subscriber gets when it can't keep up with a param, chosen per {@link
+ * DeviceConnection#observe(Param, Backpressure)} call. It applies to that subscriber alone -
+ * subscribers of the same param still share one device op, so e.g. a recorder can take every
+ * value while a UI only ever sees the latest. The hop to a delivery scheduler takes one value at
+ * a time, so this still decides what a subscriber on a busy scheduler misses.
+ */
+public final class Backpressure {
+  /** What a bounded buffer does with a value that arrives while it's full. */
+  public enum Overflow {
+    /** Evict the oldest buffered value to make room. */
+    DROP_OLDEST,
+    /** Discard the value that just arrived. */
+    DROP_LATEST,
+    /** Fail with {@link rx.exceptions.MissingBackpressureException}. */
+    ERROR
+  }
+
+  private enum Kind {
+    LATEST, DROP, BUFFER, BOUNDED
+  }
+
+  private static final Backpressure LATEST = new Backpressure(Kind.LATEST, 0, null);
+  private static final Backpressure DROP = new Backpressure(Kind.DROP, 0, null);
+  private static final Backpressure BUFFER = new Backpressure(Kind.BUFFER, 0, null);
+
+  private final Kind kind;
+  private final int capacity;
+  private final Overflow overflow;
+
+  /** Keep only the most recent value while the subscriber is busy. The default. */
+  public static @NonNull Backpressure latest() {
+    return LATEST;
+  }
+
+  /** Discard every value that arrives while the subscriber is busy. */
+  public static @NonNull Backpressure drop() {
+    return DROP;
+  }
+
+  /** Buffer without limit, so nothing is lost. Only for subscribers that keep up on average. */
+  public static @NonNull Backpressure buffer() {
+    return BUFFER;
+  }
+
+  /** Buffer up to {@code capacity} values, then apply {@code overflow}. */
+  public static @NonNull Backpressure buffer(int capacity, @NonNull Overflow overflow) {
+    if (capacity < 1) throw new IllegalArgumentException("capacity < 1");
+    return new Backpressure(Kind.BOUNDED, capacity, overflow);
+  }
+
+  private Backpressure(Kind kind, int capacity, Overflow overflow) {
+    this.kind = kind;
+    this.capacity = capacity;
+    this.overflow = overflow;
+  }
+
+  /*package*/ <T> Observable<T> apply(@NonNull Observable<T> observable) {
+    return apply(observable, null);
+  }
+
+  /**
+   * Applies this to one subscriber's {@code observable}, calling {@code onDrop} for each value
+   * it discards - or, for an {@link Overflow#ERROR} buffer, once as it overflows.
+   */
+  /*package*/ <T> Observable<T> apply(@NonNull Observable<T> observable,
+      @Nullable final Action0 onDrop) {
+    switch (kind) {
+      case LATEST:
+        // a one-value buffer that evicts is onBackpressureLatest(), but can say when it evicts.
+        return observable.lift(new OperatorOnBackpressureBounded<T>(1, true, onDrop));
+      case DROP:
+        return onDrop == null
+            ? observable.onBackpressureDrop()
+            : observable.onBackpressureDrop(new Action1<T>() {
+              @Override public void call(T t) {
+                onDrop.call();
+              }
+            });
+      case BUFFER:
+        return observable.onBackpressureBuffer();
+      default:
+        return overflow == Overflow.ERROR
+            ? observable.onBackpressureBuffer(capacity, onDrop)
+            : observable.lift(new OperatorOnBackpressureBounded<T>(capacity,
+                overflow == Overflow.DROP_OLDEST, onDrop));
+    }
+  }
+
+  @Override public String toString() {
+    return kind == Kind.BOUNDED
+        ? "Backpressure{buffer " + capacity + ", " + overflow + '}'
+        : "Backpressure{" + kind + '}';
+  }
+}
@@ -0,0 +1,61 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The distinct numeric params of a batched op, in id order: a value's batch id indexes {@link
+ * #params}, {@link #names} and {@link #types}.
+ */
+/*package*/ final class BatchLayout {
+  // CHECKSTYLE.OFF: VisibilityModifier
+  /*package*/ final List<Param<?>> params;
+  /*package*/ final String[] names;
+  /*package*/ final ValueType[] types;
+  // CHECKSTYLE.ON: VisibilityModifier
+  private final Map<Param<?>, Integer> ids;
+
+  /** @throws IllegalArgumentException if any param is unrecognized or not numeric. */
+  /*package*/ static @NonNull BatchLayout of(@NonNull Collection<? extends Param<?>> params) {
+    final Map<Param<?>, Integer> ids = new IdentityHashMap<>();
+    final List<Param<?>> distinct = new ArrayList<>(params.size());
+    final List<String> names = new ArrayList<>(params.size());
+    final List<ValueType> types = new ArrayList<>(params.size());
+    for (Param<?> param : params) {
+      String name = Params.nameFor(param);
+      if (name == null) throw new IllegalArgumentException("unrecognized param");
+      ValueType type = ValueType.of(param);
+      if (!type.isNumeric()) throw new IllegalArgumentException(name + " is not numeric");
+      if (ids.containsKey(param)) continue;
+      ids.put(param, distinct.size());
+      distinct.add(param);
+      names.add(name);
+      types.add(type);
+    }
+    return new BatchLayout(Collections.unmodifiableList(distinct),
+        names.toArray(new String[names.size()]), types.toArray(new ValueType[types.size()]), ids);
+  }
+
+  private BatchLayout(List<Param<?>> params, String[] names, ValueType[] types,
+      Map<Param<?>, Integer> ids) {
+    this.params = params;
+    this.names = names;
+    this.types = types;
+    this.ids = ids;
+  }
+
+  /** {@code param}'s batch id, or -1 if it isn't in the batch. */
+  /*package*/ int idOf(@NonNull Param<?> param) {
+    Integer id = ids.get(param);
+    return id == null ? -1 : id;
+  }
+
+  /*package*/ int size() {
+    return names.length;
+  }
+}
@@ -0,0 +1,54 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the device service may group values for a {@link ParamBatch}: a batch is flushed once it
+ * holds {@link #maxBatchSize()} values or its oldest value is {@link #maxLatencyMs()} old,
+ * whichever comes first.
+ * <p>
+ * For very high rate params, {@link #withSharedMemory(int)} additionally asks the service to
+ * write values into a shared memory ring and only use the binder to signal that new values are
+ * there. Services that don't support it are used through the plain batched transport instead.
+ */
+public final class BatchPolicy {
+  private final int maxBatchSize;
+  private final long maxLatencyMs;
+  private final int ringCapacity;
+
+  public static @NonNull BatchPolicy create(int maxBatchSize, long maxLatency,
+      @NonNull TimeUnit unit) {
+    if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize < 1");
+    if (maxLatency < 0) throw new IllegalArgumentException("maxLatency < 0");
+    return new BatchPolicy(maxBatchSize, unit.toMillis(maxLatency), 0);
+  }
+
+  private BatchPolicy(int maxBatchSize, long maxLatencyMs, int ringCapacity) {
+    this.maxBatchSize = maxBatchSize;
+    this.maxLatencyMs = maxLatencyMs;
+    this.ringCapacity = ringCapacity;
+  }
+
+  /**
+   * Copy of this policy that prefers a shared memory ring holding up to {@code ringCapacity}
+   * samples. A reader that falls a full ring behind loses the oldest samples.
+   */
+  public @NonNull BatchPolicy withSharedMemory(int ringCapacity) {
+    if (ringCapacity < maxBatchSize) throw new IllegalArgumentException("ring < maxBatchSize");
+    return new BatchPolicy(maxBatchSize, maxLatencyMs, ringCapacity);
+  }
+
+  public int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public long maxLatencyMs() {
+    return maxLatencyMs;
+  }
+
+  /** Ring size in samples, or 0 if shared memory isn't requested. */
+  public int ringCapacity() {
+    return ringCapacity;
+  }
+}
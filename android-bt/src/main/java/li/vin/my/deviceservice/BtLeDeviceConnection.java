@@ -6,36 +6,93 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import rx.Observable;
+import rx.Scheduler;
 import rx.Subscriber;
+import rx.Subscription;
 import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
-import rx.functions.Func2;
 import rx.internal.operators.OperatorReplayFix;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
 
 /*package*/ class BtLeDeviceConnection extends BluetoothGattCallback implements DeviceConnection {
   private static final String TAG = BtLeDeviceConnection.class.getSimpleName();
-
-  private final Map<Object, Observable<?>> paramObservables = new IdentityHashMap<>();
-  private final Set<Object> ops = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+  // how long observeAll lets values gather into one update by default.
+  private static final long DEFAULT_UPDATE_LATENCY_MS = 50;
+
+  // shared op observables by key (a Param, or a unique key for unshared ops). Entries are removed
+  // when their op closes; callers only ever hold handles that look the op up on subscribe.
+  private final ConcurrentHashMap<Object, Observable<?>> paramObservables =
+      new ConcurrentHashMap<>();
+  // ops currently running against the service - the binding is released when this drops to 0.
+  private final AtomicInteger activeOps = new AtomicInteger();
+  // metrics of the ops currently open.
+  private final Set<OpRecorder> opRecorders =
+      Collections.newSetFromMap(new ConcurrentHashMap<OpRecorder, Boolean>());
+  // the newest open op's metrics by op key, which subscribers' backpressure drops count against.
+  private final ConcurrentHashMap<Object, OpRecorder> currentRecorders =
+      new ConcurrentHashMap<>();
+  private volatile OpMetrics.Listener metricsListener;
 
   private volatile IDevServ devServ;
   private volatile boolean isServiceBound;
   private final HashSet<Runnable> runOnServiceConnected = new HashSet<>();
   private final Cancelations cancelations = Cancelations.createGroup();
+  // straight off the raw op, so frames are demultiplexed on the binder thread, unconflated.
+  private final StreamDemux streamDemux = new StreamDemux(Observable.defer(
+      new Func0<Observable<String>>() {
+        @Override public Observable<String> call() {
+          return observeOp(Params.RAW_STREAM);
+        }
+      }));
+
+  // binding and op bookkeeping run on a shared background thread rather than the main Looper, so
+  // (re)binding and many params subscribing at once don't compete with UI frames.
+  private static HandlerThread bindingThread;
+
+  private static synchronized Looper bindingLooper() {
+    if (bindingThread == null) {
+      bindingThread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+      bindingThread.start();
+    }
+    return bindingThread.getLooper();
+  }
 
-  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Handler handler = new Handler(bindingLooper());
+  private volatile Scheduler deliveryScheduler;
+  private volatile long lingerMs;
+  // read by ops each time they start lingering, so setLinger applies to ops already open.
+  private final Func0<Long> linger = new Func0<Long>() {
+    @Override public Long call() {
+      return lingerMs;
+    }
+  };
+  private volatile RetryPolicy retryPolicy = RetryPolicy.immediate();
+  private final ReconnectTracker reconnects = new ReconnectTracker();
+  private final Random random = new Random();
+  private final ServiceBinder serviceBinder;
   private WeakReference<Context> contextRef;
   /*package*/ final String chipId;
   /*package*/ final String deviceName;
@@ -44,15 +101,29 @@ import rx.internal.operators.OperatorReplayFix;
 
   public BtLeDeviceConnection(@NonNull Context context, @NonNull String chipId, String deviceName,
       String deviceIcon, @NonNull String deviceId) {
+    this((ServiceBinder) null, chipId, deviceName, deviceIcon, deviceId);
+    updateContext(context);
+  }
+
+  /**
+   * Test hook: reach the device service through {@code serviceBinder} instead of {@link
+   * Context#bindService}, e.g. to run against an in-process fake {@link IDevServ} off-device.
+   */
+  /*package*/ BtLeDeviceConnection(@Nullable ServiceBinder serviceBinder, @NonNull String chipId,
+      String deviceName, String deviceIcon, @NonNull String deviceId) {
+    this.serviceBinder = serviceBinder == null
+        ? contextBinder
+        : serviceBinder;
     this.chipId = chipId;
     this.deviceName = deviceName;
     this.deviceIcon = deviceIcon;
     this.deviceId = deviceId;
-    updateContext(context);
   }
 
   private Context context() {
-    return contextRef.get();
+    return contextRef == null
+        ? null
+        : contextRef.get();
   }
 
   /*package*/ void updateContext(@NonNull Context context) {
@@ -75,11 +146,101 @@ import rx.internal.operators.OperatorReplayFix;
     return deviceId;
   }
 
+  @Override public void setDeliveryScheduler(@Nullable Scheduler scheduler) {
+    deliveryScheduler = scheduler;
+  }
+
+  @Override public void setLinger(long linger, @NonNull TimeUnit unit) {
+    if (linger < 0) throw new IllegalArgumentException("linger < 0");
+    lingerMs = unit.toMillis(linger);
+  }
+
+  @Override public void setRetryPolicy(@NonNull RetryPolicy policy) {
+    retryPolicy = policy;
+  }
+
+  @NonNull @Override public ReconnectStats reconnectStats() {
+    return reconnects.snapshot(SystemClock.elapsedRealtimeNanos());
+  }
+
+  @NonNull @Override public List<OpMetrics> opMetrics() {
+    final long now = SystemClock.elapsedRealtimeNanos();
+    final List<OpMetrics> metrics = new ArrayList<>(opRecorders.size());
+    for (OpRecorder recorder : opRecorders) metrics.add(recorder.snapshot(now, false));
+    return metrics;
+  }
+
+  @Override public void setMetricsListener(@Nullable OpMetrics.Listener listener) {
+    metricsListener = listener;
+  }
+
   @NonNull @Override public Observable<Void> resetDtcs() {
-    return doOp("resetDtcs", null, new DeviceServiceFuncResetDtcs(chipId));
+    return deliver(doOp("resetDtcs", null, new DeviceServiceFuncResetDtcs(chipId)));
   }
 
   @NonNull @Override public <T> Observable<T> observe(@NonNull final Param<T> param) {
+    return observe(param, Backpressure.latest());
+  }
+
+  @NonNull @Override public <T> Observable<T> observe(@NonNull Param<T> param,
+      @NonNull Backpressure backpressure) {
+    return deliver(observeOp(param), backpressure, dropCounter(param));
+  }
+
+  @NonNull @Override public <T extends Number> Observable<T> observe(@NonNull Param<T> param,
+      @NonNull Deadband deadband) {
+    final String name = Params.nameFor(param);
+    if (name == null) {
+      return Observable.error(new RuntimeException("unrecognized param"));
+    }
+    final DeviceServiceFunc<?> func;
+    switch (ValueType.of(param)) {
+      case FLOAT:
+        func = new DeviceServiceFuncFloat(chipId, name, deadband);
+        break;
+      case INT:
+        func = new DeviceServiceFuncInt(chipId, name, deadband);
+        break;
+      default:
+        return Observable.error(new IllegalArgumentException(name + " is not numeric"));
+    }
+    // ValueType.of(param) matched the func's type to T above.
+    @SuppressWarnings("unchecked")
+    final DeviceServiceFunc<T> typed = (DeviceServiceFunc<T>) func;
+    final DeadbandKey key = new DeadbandKey(param, deadband);
+    return deliver(doOp(key, name + " " + deadband, typed), Backpressure.latest(),
+        dropCounter(key));
+  }
+
+  @NonNull @Override public Observable<Float> observe(@NonNull DerivedMetric metric) {
+    return deliver(derivedOp(metric), Backpressure.latest(), null);
+  }
+
+  // shared per metric like a device op, computing over the inputs' own shared ops.
+  private Observable<Float> derivedOp(final DerivedMetric metric) {
+    return getOrCreateOp(metric, new ObservableFactory<Float>() {
+      @Override public Observable<Float> create(final Observable<?>[] self) {
+        Log.d(TAG, "creating derived observable for " + metric);
+        final List<Observable<?>> inputs = new ArrayList<>(metric.inputs().size());
+        for (Param<?> input : metric.inputs()) inputs.add(observeOp(input));
+        return OnSubscribeRefCountLinger.refCount(OperatorReplayFix.create(
+            Observable.create(new OnSubscribeDerived(metric, inputs))
+                .onBackpressureLatest()
+                .doOnSubscribe(new Action0() {
+                  @Override public void call() {
+                    paramObservables.putIfAbsent(metric, self[0]);
+                  }
+                })
+                .doOnUnsubscribe(new Action0() {
+                  @Override public void call() {
+                    paramObservables.remove(metric, self[0]);
+                  }
+                }), 1), handler, linger);
+      }
+    });
+  }
+
+  private <T> Observable<T> observeOp(Param<T> param) {
     final String name = Params.nameFor(param);
     if (name == null) {
       return Observable.error(new RuntimeException("unrecognized param"));
@@ -87,6 +248,200 @@ import rx.internal.operators.OperatorReplayFix;
     return doOp(param, name, param.getServiceFunc(chipId, name));
   }
 
+  @NonNull @Override
+  public Subscription observe(@NonNull Param<Float> param, @NonNull final FloatSink sink) {
+    final String name = Params.nameFor(param);
+    if (name == null) {
+      sink.onError(new RuntimeException("unrecognized param"));
+      return Subscriptions.unsubscribed();
+    }
+    return doSinkOp(name, new DeviceServiceFuncFloatSink(chipId, name, sink),
+        new Subscriber<Void>() {
+          @Override public void onCompleted() {
+            sink.onCompleted();
+          }
+
+          @Override public void onError(Throwable e) {
+            sink.onError(e);
+          }
+
+          @Override public void onNext(Void aVoid) {
+          }
+        });
+  }
+
+  @NonNull @Override
+  public Subscription observe(@NonNull Param<Integer> param, @NonNull final IntSink sink) {
+    final String name = Params.nameFor(param);
+    if (name == null) {
+      sink.onError(new RuntimeException("unrecognized param"));
+      return Subscriptions.unsubscribed();
+    }
+    return doSinkOp(name, new DeviceServiceFuncIntSink(chipId, name, sink),
+        new Subscriber<Void>() {
+          @Override public void onCompleted() {
+            sink.onCompleted();
+          }
+
+          @Override public void onError(Throwable e) {
+            sink.onError(e);
+          }
+
+          @Override public void onNext(Void aVoid) {
+          }
+        });
+  }
+
+  @NonNull @Override public Subscription observeAccel(@NonNull final AccelSink sink) {
+    final AccelDecoder decoder = new AccelDecoder();
+    final long subscribedAt = SystemClock.elapsedRealtimeNanos();
+    return observeOp(Params.ACCEL_RAW).subscribe(new Subscriber<String>() {
+      @Override public void onCompleted() {
+        sink.onCompleted();
+      }
+
+      @Override public void onError(Throwable e) {
+        sink.onError(e);
+      }
+
+      @Override public void onNext(String frame) {
+        final OpRecorder recorder = currentRecorders.get(Params.ACCEL_RAW);
+        final long arrivedAt = recorder == null
+            ? SystemClock.elapsedRealtimeNanos()
+            : recorder.arrivalOf(frame);
+        // the op replays its latest frame to each new subscriber; a sink only wants fresh ones.
+        if (arrivedAt < subscribedAt) return;
+        if (decoder.decode(frame)) {
+          sink.onSample(decoder.xyz, decoder.collision, arrivedAt);
+        }
+      }
+    });
+  }
+
+  @NonNull @Override public Observable<AccelBatch> observeAccel(int samples) {
+    return deliver(Observable.create(new OnSubscribeAccelBatch(this, samples))
+        .onBackpressureBuffer());
+  }
+
+  @NonNull @Override
+  public Observable<HarshEvent> observeHarshEvents(@NonNull HarshEventPolicy policy) {
+    return deliver(Observable.create(new OnSubscribeHarshEvents(this, policy))
+        .onBackpressureBuffer());
+  }
+
+  @NonNull @Override public ParamBatch batch(@NonNull Collection<? extends Param<?>> params,
+      @NonNull BatchPolicy policy) {
+    final BatchLayout layout = BatchLayout.of(params);
+    final Observable<ValueBatch> batches = batchOp(layout, policy);
+
+    return new ParamBatch() {
+      @NonNull @Override public <T> Observable<T> observe(@NonNull Param<T> param) {
+        return observe(param, Backpressure.latest());
+      }
+
+      @NonNull @Override public <T> Observable<T> observe(@NonNull final Param<T> param,
+          @NonNull Backpressure backpressure) {
+        final int id = layout.idOf(param);
+        if (id < 0) {
+          return Observable.error(new IllegalArgumentException("param not in batch"));
+        }
+        return deliver(batches.lift(new OperatorBatchDemux<T>(id, layout.types[id]))
+            .onErrorResumeNext(new Func1<Throwable, Observable<? extends T>>() {
+              @Override public Observable<? extends T> call(Throwable throwable) {
+                if (throwable instanceof ServiceCapabilities.NotSupportedException) {
+                  Log.i(TAG, "batching unsupported by service, observing unbatched.");
+                  return observeOp(param);
+                }
+                return Observable.error(throwable);
+              }
+            }), backpressure, null);
+      }
+    };
+  }
+
+  @NonNull @Override public Observable<ParamUpdate> observeAll(
+      @NonNull Collection<? extends Param<?>> params) {
+    final BatchLayout layout = BatchLayout.of(params);
+    return deliver(updates(layout, defaultUpdatePolicy(layout)).onBackpressureBuffer());
+  }
+
+  @NonNull @Override public Observable<ParamUpdate> observeAll(
+      @NonNull Collection<? extends Param<?>> params, @NonNull BatchPolicy policy) {
+    return deliver(updates(BatchLayout.of(params), policy).onBackpressureBuffer());
+  }
+
+  @NonNull @Override public Observable<ParamSnapshot> observeSnapshots(
+      @NonNull Collection<? extends Param<?>> params, @NonNull SnapshotPolicy policy) {
+    final BatchLayout layout = BatchLayout.of(params);
+    return deliver(updates(layout, defaultUpdatePolicy(layout))
+        .lift(new OperatorSnapshot(layout, policy, Schedulers.computation())),
+        Backpressure.latest(), null);
+  }
+
+  private static BatchPolicy defaultUpdatePolicy(BatchLayout layout) {
+    return BatchPolicy.create(Math.max(1, layout.size()), DEFAULT_UPDATE_LATENCY_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  private Observable<ParamUpdate> updates(final BatchLayout layout, BatchPolicy policy) {
+    return batchOp(layout, policy).map(new Func1<ValueBatch, ParamUpdate>() {
+      @Override public ParamUpdate call(ValueBatch batch) {
+        return new ParamUpdate(layout, batch);
+      }
+    }).onErrorResumeNext(new Func1<Throwable, Observable<? extends ParamUpdate>>() {
+      @Override public Observable<? extends ParamUpdate> call(Throwable throwable) {
+        if (throwable instanceof ServiceCapabilities.NotSupportedException) {
+          Log.i(TAG, "batching unsupported by service, observing each param.");
+          return ParamUpdate.fromEach(layout, new Func1<Param<?>, Observable<?>>() {
+            @Override public Observable<?> call(Param<?> param) {
+              return observeOp(param);
+            }
+          });
+        }
+        return Observable.error(throwable);
+      }
+    });
+  }
+
+  // one batched op for the whole layout, over shared memory if the policy asks for it and the
+  // service supports it.
+  private Observable<ValueBatch> batchOp(final BatchLayout layout, BatchPolicy policy) {
+    final Observable<ValueBatch> batched = doOp(new Object(), "batch of " + layout.size(),
+        new DeviceServiceFuncBatch(chipId, layout.names, policy));
+    return policy.ringCapacity() == 0
+        ? batched
+        : doOp(new Object(), "ring of " + layout.size(),
+            new DeviceServiceFuncRing(chipId, layout.names, policy)).onErrorResumeNext(
+            new Func1<Throwable, Observable<? extends ValueBatch>>() {
+              @Override public Observable<? extends ValueBatch> call(Throwable throwable) {
+                if (throwable instanceof ServiceCapabilities.NotSupportedException) {
+                  Log.i(TAG, "shared memory unsupported by service, batching over binder.");
+                  return batched;
+                }
+                return Observable.error(throwable);
+              }
+            });
+  }
+
+  @NonNull @Override public <T> Observable<T> observeMultiplexed(@NonNull Param<T> param) {
+    return StreamDemux.canDemux(param)
+        ? deliver(streamDemux.observe(param), Backpressure.latest(),
+            dropCounter(Params.RAW_STREAM))
+        : observe(param);
+  }
+
+  @NonNull @Override public <T extends Number> Observable<WindowStats> observeWindowed(
+      @NonNull Param<T> param, long interval, @NonNull TimeUnit unit) {
+    return deliver(observeOp(param).compose(
+        WindowStats.<T>over(interval, unit, Schedulers.computation())), Backpressure.latest(),
+        null);
+  }
+
+  @NonNull @Override public Observable<ParamValue<?>> observeSupported(
+      @NonNull Collection<? extends Param<?>> params) {
+    return ParamPlanner.observeSupported(this, params);
+  }
+
   @NonNull @Override public Observable<SupportedPids> supportedPids() {
     return observe(Params.PIDS).map(new Func1<String, SupportedPids>() {
       @Override public SupportedPids call(String rawPids) {
@@ -96,28 +451,78 @@ import rx.internal.operators.OperatorReplayFix;
     });
   }
 
+  // counts a subscriber's backpressure drops against the op it's reading from.
+  private Action0 dropCounter(final Object opKey) {
+    return new Action0() {
+      @Override public void call() {
+        final OpRecorder metrics = currentRecorders.get(opKey);
+        if (metrics != null) metrics.onDropped.call();
+      }
+    };
+  }
+
+  // applied per subscriber after the shared replay, so each gets its own hop to the scheduler.
+  private <T> Observable<T> deliver(Observable<T> observable) {
+    final Scheduler scheduler = deliveryScheduler;
+    return scheduler == null
+        ? observable
+        : observable.observeOn(scheduler);
+  }
+
+  // as above, for lossy subscribers: the hop takes one value at a time, so it's still
+  // backpressure that decides what a subscriber on a busy scheduler misses.
+  private <T> Observable<T> deliver(Observable<T> observable, Backpressure backpressure,
+      @Nullable Action0 onDrop) {
+    final Observable<T> applied = backpressure.apply(observable, onDrop);
+    final Scheduler scheduler = deliveryScheduler;
+    return scheduler == null
+        ? applied
+        : applied.lift(new OperatorDeliverOn<T>(scheduler));
+  }
+
   private <T> Observable<T> doOp(final Object opKey, final String opLabel,
       final DeviceServiceFunc<T> func) {
     return getOrCreateOp(opKey, new ObservableFactory<T>() {
-      @Override public Observable<T> create() {
-        Log.d(TAG, "creating param observable for " + (opLabel == null ? opKey : opLabel));
+      @Override public Observable<T> create(final Observable<?>[] self) {
+        final String label = opLabel == null ? String.valueOf(opKey) : opLabel;
+        Log.d(TAG, "creating param observable for " + label);
+        final RetryOnDisconnect retry = new RetryOnDisconnect(label);
+        final OpRecorder metrics = new OpRecorder(label);
         // TODO: use actual replay operator when past bugged rxjava version 1.0.14
-        return OperatorReplayFix.create(
-            serviceObservable.flatMap(func.setCancelations(cancelations))
-                .retry(retryOnDisconnect)
+        return OnSubscribeRefCountLinger.refCount(OperatorReplayFix.create(
+            serviceObservable.doOnNext(metrics.onBound)
+                .flatMap(func.setCancelations(cancelations))
+                .doOnNext(retry.resetAttempts)
+                .retryWhen(retry)
+                .doOnNext(metrics.onReceived)
                 .doOnUnsubscribe(func.cancelOpAction)
+                // observers apply their own Backpressure past the replay, which then always
+                // requests everything - so this only conflates for raw ops like resetDtcs.
                 .onBackpressureLatest()
                 .doOnSubscribe(new Action0() {
                   @Override public void call() {
-                    putOp(opKey);
+                    // back in the registry if it closed as a subscriber was on its way in.
+                    paramObservables.putIfAbsent(opKey, self[0]);
+                    metrics.open(SystemClock.elapsedRealtimeNanos());
+                    opRecorders.add(metrics);
+                    currentRecorders.put(opKey, metrics);
+                    retainBinding();
                   }
                 })
                 .doOnUnsubscribe(new Action0() {
                   @Override public void call() {
-                    Log.d(TAG, "all unsubscribed from " + (opLabel == null ? opKey : opLabel));
-                    removeOp(opKey);
+                    Log.d(TAG, "all unsubscribed from " + label);
+                    paramObservables.remove(opKey, self[0]);
+                    opRecorders.remove(metrics);
+                    currentRecorders.remove(opKey, metrics);
+                    releaseBinding();
+                    final OpMetrics.Listener listener = metricsListener;
+                    if (listener != null) {
+                      listener.onOpClosed(metrics.snapshot(SystemClock.elapsedRealtimeNanos(),
+                          true));
+                    }
                   }
-                }), 1).refCount();
+                }), 1), handler, linger);
         // ---
         // just sharing means results throttled on distinct vals never 
         // come through for duplicate subscribers - replay instead.
@@ -142,88 +547,182 @@ import rx.internal.operators.OperatorReplayFix;
     });
   }
 
-  private final Func2<Integer, Throwable, Boolean> retryOnDisconnect =
-      new Func2<Integer, Throwable, Boolean>() {
-        @Override public Boolean call(Integer integer, Throwable throwable) {
-          Log.i(TAG, "retryOnDisconnect...");
-          if (throwable instanceof ServiceDisconnectedException) {
-            isServiceBound = false;
-            return true;
+  // sink ops are never shared - values go straight to the sink, so there's nothing to replay.
+  private Subscription doSinkOp(final String opLabel, final DeviceServiceFunc<Void> func,
+      final Subscriber<Void> terminal) {
+    Log.d(TAG, "creating sink op for " + opLabel);
+    return serviceObservable.flatMap(func.setCancelations(cancelations))
+        .retryWhen(new RetryOnDisconnect(opLabel))
+        .doOnUnsubscribe(func.cancelOpAction)
+        .doOnSubscribe(new Action0() {
+          @Override public void call() {
+            retainBinding();
+          }
+        })
+        .doOnUnsubscribe(new Action0() {
+          @Override public void call() {
+            Log.d(TAG, "unsubscribed from sink op for " + opLabel);
+            releaseBinding();
+          }
+        })
+        .subscribe(terminal);
+  }
+
+  /**
+   * Resubscribes an op after the service disconnects, as {@link #retryPolicy} allows - other
+   * errors go through. Attempts count up until the op delivers a value again.
+   */
+  private final class RetryOnDisconnect
+      implements Func1<Observable<? extends Throwable>, Observable<?>> {
+    private final Object label;
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    /*package*/ final Action1<Object> resetAttempts = new Action1<Object>() {
+      @Override public void call(Object o) {
+        if (attempts.get() != 0) attempts.set(0);
+      }
+    };
+
+    private RetryOnDisconnect(Object label) {
+      this.label = label;
+    }
+
+    @Override public Observable<?> call(Observable<? extends Throwable> errors) {
+      return errors.flatMap(new Func1<Throwable, Observable<?>>() {
+        @Override public Observable<?> call(Throwable throwable) {
+          if (!(throwable instanceof ServiceDisconnectedException)) {
+            return Observable.error(throwable);
+          }
+          isServiceBound = false;
+          final int attempt = attempts.incrementAndGet();
+          final long delayMs = reconnects.isOpen(SystemClock.elapsedRealtimeNanos())
+              ? -1
+              : retryPolicy.delayMs(attempt, random);
+          if (delayMs < 0) {
+            Log.w(TAG, "giving up on " + label + " after " + attempt + " attempt(s).");
+            reconnects.onGaveUp();
+            return Observable.error(new RetryPolicy.GaveUpException(
+                "gave up reconnecting " + label + " after " + attempt + " attempt(s).",
+                throwable));
           }
-          return false;
-          //if (!(throwable instanceof ServiceDisconnectedException)) return false;
-          ////noinspection ThrowableResultOfMethodCallIgnored
-          //boolean retry = tryBind() == null;
-          //if (!retry) shutdown();
-          //Log.i(TAG, "retryOnDisconnect retry " + retry);
-          //return retry;
+          Log.i(TAG, "retrying " + label + " in " + delayMs + "ms, attempt " + attempt);
+          return delayMs == 0
+              ? Observable.just(null)
+              : Observable.timer(delayMs, TimeUnit.MILLISECONDS);
         }
-      };
+      });
+    }
+  }
 
+  /** Unbind now, failing every running op. */
   public void shutdown() {
     isServiceBound = false;
     handler.removeCallbacks(shutdown);
     handler.post(shutdown);
   }
 
+  /** Ops with a deadband are shared between observers of the same param and deadband. */
+  private static final class DeadbandKey {
+    private final Param<?> param;
+    private final Deadband deadband;
+
+    private DeadbandKey(Param<?> param, Deadband deadband) {
+      this.param = param;
+      this.deadband = deadband;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof DeadbandKey)) return false;
+      DeadbandKey that = (DeadbandKey) o;
+      return param == that.param && deadband.equals(that.deadband);
+    }
+
+    @Override public int hashCode() {
+      return 31 * System.identityHashCode(param) + deadband.hashCode();
+    }
+  }
+
   private interface ObservableFactory<T> {
-    Observable<T> create();
-  }
-
-  private <T> Observable<T> getOrCreateOp(Object opKey, ObservableFactory<T> factory) {
-    Observable<T> result;
-    synchronized (paramObservables) {
-      Observable<?> prev = paramObservables.get(opKey);
-      if (prev == null) {
-        paramObservables.put(opKey, result = factory.create());
-      } else {
-        //noinspection unchecked
-        result = (Observable<T>) prev;
+    /** {@code self[0]} is set to the registered observable once it's created. */
+    Observable<T> create(Observable<?>[] self);
+  }
+
+  /**
+   * A handle on the op registered under {@code opKey}, looked up afresh - and created if there's
+   * none - on every subscribe. Ops leave {@link #paramObservables} once they close, so a caller
+   * resubscribing to a handle it held on to, e.g. through retry, joins the current op rather than
+   * reopening the closed one next to it.
+   */
+  private <T> Observable<T> getOrCreateOp(final Object opKey,
+      final ObservableFactory<T> factory) {
+    return Observable.create(new Observable.OnSubscribe<T>() {
+      @Override public void call(Subscriber<? super T> child) {
+        registeredOp(opKey, factory).unsafeSubscribe(child);
       }
-    }
-    return result;
+    });
   }
 
-  private void putOp(Object op) {
-    synchronized (ops) {
-      ops.add(op);
+  private <T> Observable<T> registeredOp(Object opKey, ObservableFactory<T> factory) {
+    Observable<?> result = paramObservables.get(opKey);
+    if (result == null) {
+      // racing creators each build one, but only the first registered is ever subscribed.
+      final Observable<?>[] self = new Observable<?>[1];
+      final Observable<T> created = factory.create(self);
+      self[0] = created;
+      result = paramObservables.putIfAbsent(opKey, created);
+      if (result == null) result = created;
     }
+    //noinspection unchecked
+    return (Observable<T>) result;
   }
 
-  private void removeOp(Object op) {
-    boolean emptied;
-    synchronized (ops) {
-      ops.remove(op);
-      emptied = ops.isEmpty();
-    }
-    if (emptied) {
-      shutdown();
+  private void retainBinding() {
+    activeOps.incrementAndGet();
+  }
+
+  private void releaseBinding() {
+    // the last op has already lingered, so the binding goes straight away.
+    if (activeOps.decrementAndGet() == 0) {
+      handler.removeCallbacks(shutdownIfIdle);
+      handler.post(shutdownIfIdle);
     }
   }
 
+  // posted, so an op may have started since the count hit 0 - check again before unbinding.
+  private final Runnable shutdownIfIdle = new Runnable() {
+    @Override public void run() {
+      if (activeOps.get() > 0) {
+        Log.d(TAG, "ops resumed before shutdown, staying bound.");
+        return;
+      }
+      unbind();
+    }
+  };
+
   private final Runnable shutdown = new Runnable() {
     @Override public void run() {
-      Log.e(TAG, "shutdown.");
       handler.removeCallbacks(this);
-      try {
-        Context context = context();
-        if (context == null) throw new Exception("no Context available.");
-        context.unbindService(servConn);
-        Log.d(TAG, "Vinli device service successfully unbound.");
-      } catch (Exception e) {
-        Log.e(TAG, "Vinli device service unbind error: " + e);
-      }
-      isServiceBound = false;
-      devServ = null;
+      handler.removeCallbacks(shutdownIfIdle);
+      unbind();
       paramObservables.clear();
-      dispatchAndClear(runOnServiceConnected);
-      synchronized (ops) {
-        ops.clear();
-      }
       cancelations.cancelAll(new Exception("Service binding has shut down."));
     }
   };
 
+  // on the binding thread only.
+  private void unbind() {
+    Log.e(TAG, "shutdown.");
+    try {
+      serviceBinder.unbind(servConn);
+      Log.d(TAG, "Vinli device service successfully unbound.");
+    } catch (Exception e) {
+      Log.e(TAG, "Vinli device service unbind error: " + e);
+    }
+    isServiceBound = false;
+    devServ = null;
+    dispatchAndClear(runOnServiceConnected);
+  }
+
   // safely dispatch from copied set to prevent side effects, concurrent mod, etc.
   private static void dispatchAndClear(Set<Runnable> runnables) {
     Set<Runnable> copy = new HashSet<>(runnables);
@@ -232,29 +731,55 @@ import rx.internal.operators.OperatorReplayFix;
   }
 
   private final ServiceConnection servConn = new ServiceConnection() {
+    // called on the main thread - hop to the binding thread, which owns runOnServiceConnected.
     @Override public void onServiceConnected(ComponentName name, final IBinder service) {
       Log.i(TAG, "onServiceConnected");
-      devServ = IDevServ.Stub.asInterface(service);
-      dispatchAndClear(runOnServiceConnected);
+      handler.post(new Runnable() {
+        @Override public void run() {
+          devServ = IDevServ.Stub.asInterface(service);
+          reconnects.onConnected(SystemClock.elapsedRealtimeNanos());
+          dispatchAndClear(runOnServiceConnected);
+        }
+      });
     }
 
     @Override public void onServiceDisconnected(ComponentName name) {
       Log.i(TAG, "onServiceDisconnected");
       devServ = null;
+      reconnects.onDisconnected(SystemClock.elapsedRealtimeNanos(), retryPolicy);
       cancelations.cancelAll(new ServiceDisconnectedException());
     }
   };
 
-  private @Nullable Throwable tryBind() {
-    try {
+  /** How the connection reaches the device service. */
+  /*package*/ interface ServiceBinder {
+    void bind(@NonNull ServiceConnection conn) throws Exception;
+
+    void unbind(@NonNull ServiceConnection conn) throws Exception;
+  }
+
+  private final ServiceBinder contextBinder = new ServiceBinder() {
+    @Override public void bind(@NonNull ServiceConnection conn) throws Exception {
       Context context = context();
       if (context == null) throw new Exception("no Context available.");
       Intent i = new Intent();
       i.setClassName(context.getString(R.string.my_vinli_package_name),
           context.getString(R.string.device_service_component_name));
-      if (!context.bindService(i, servConn, Context.BIND_AUTO_CREATE)) {
+      if (!context.bindService(i, conn, Context.BIND_AUTO_CREATE)) {
         throw new Exception("bindService call returned false.");
       }
+    }
+
+    @Override public void unbind(@NonNull ServiceConnection conn) throws Exception {
+      Context context = context();
+      if (context == null) throw new Exception("no Context available.");
+      context.unbindService(conn);
+    }
+  };
+
+  private @Nullable Throwable tryBind() {
+    try {
+      serviceBinder.bind(servConn);
       Log.d(TAG, "Vinli device service successfully bound.");
       isServiceBound = true;
     } catch (Exception e) {
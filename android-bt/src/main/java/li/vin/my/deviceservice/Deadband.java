@@ -0,0 +1,62 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suppresses values of a numeric param that haven't moved far enough from the last one let
+ * through, and optionally any that follow it too soon. For slow-moving params like coolant
+ * temperature or battery voltage this keeps unchanged values from crossing the binder or waking
+ * subscribers at all. See {@link DeviceConnection#observe(Param, Deadband)}.
+ */
+public final class Deadband {
+  private static final Deadband CHANGES = new Deadband(0, 0);
+
+  private final float threshold;
+  private final long deadTimeMs;
+
+  /** Let a value through whenever it differs from the last one let through. */
+  public static @NonNull Deadband changes() {
+    return CHANGES;
+  }
+
+  /** Let a value through once it's at least {@code threshold} from the last one let through. */
+  public static @NonNull Deadband of(float threshold) {
+    if (!(threshold >= 0)) throw new IllegalArgumentException("threshold must be >= 0");
+    return threshold == 0 ? CHANGES : new Deadband(threshold, 0);
+  }
+
+  private Deadband(float threshold, long deadTimeMs) {
+    this.threshold = threshold;
+    this.deadTimeMs = deadTimeMs;
+  }
+
+  /** Copy of this deadband that also holds back everything for {@code deadTime} after a value. */
+  public @NonNull Deadband withDeadTime(long deadTime, @NonNull TimeUnit unit) {
+    if (deadTime < 0) throw new IllegalArgumentException("deadTime < 0");
+    return new Deadband(threshold, unit.toMillis(deadTime));
+  }
+
+  /*package*/ float threshold() {
+    return threshold;
+  }
+
+  /*package*/ long deadTimeMs() {
+    return deadTimeMs;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof Deadband)) return false;
+    Deadband that = (Deadband) o;
+    return Float.compare(that.threshold, threshold) == 0 && deadTimeMs == that.deadTimeMs;
+  }
+
+  @Override public int hashCode() {
+    return 31 * Float.floatToIntBits(threshold) + (int) (deadTimeMs ^ (deadTimeMs >>> 32));
+  }
+
+  @Override public String toString() {
+    return "Deadband{" + threshold + ", " + deadTimeMs + "ms}";
+  }
+}
@@ -0,0 +1,38 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Client-side {@link Deadband} for a single op, for services that can't apply it at the source.
+ * Start a new one whenever the op is (re)opened.
+ */
+/*package*/ final class DeadbandFilter {
+  private final float threshold;
+  private final long deadTimeMs;
+
+  // guarded by this.
+  private boolean any;
+  private float last;
+  private long lastAtMs;
+
+  /*package*/ DeadbandFilter(@NonNull Deadband deadband) {
+    this.threshold = deadband.threshold();
+    this.deadTimeMs = deadband.deadTimeMs();
+  }
+
+  /** Whether {@code value}, arriving at {@code nowMs}, should be let through. */
+  /*package*/ synchronized boolean accept(float value, long nowMs) {
+    if (any) {
+      if (nowMs - lastAtMs < deadTimeMs) return false;
+      if (threshold == 0
+          ? Float.compare(value, last) == 0
+          : Math.abs(value - last) < threshold) {
+        return false;
+      }
+    }
+    any = true;
+    last = value;
+    lastAtMs = nowMs;
+    return true;
+  }
+}
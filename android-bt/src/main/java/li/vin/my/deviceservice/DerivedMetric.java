@@ -0,0 +1,53 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A value computed from the latest values of other numeric {@link Param}s, recomputed each time
+ * any of them arrives. Observe one with {@link DeviceConnection#observe(DerivedMetric)}; every
+ * observer of the same instance shares one computation, over the same shared param ops. See
+ * {@link DerivedMetrics} for built-in ones.
+ * <p>
+ * Each input comes from its own op, so the latest values may be from different readings. That's
+ * fine for slowly changing params, but not for parts of one reading - use {@link
+ * DeviceConnection#observeAccel(AccelSink)} for accelerometer axes from the same frame.
+ */
+public abstract class DerivedMetric {
+  private final String name;
+  private final List<Param<?>> inputs;
+
+  /** @throws IllegalArgumentException if any input is unrecognized or not numeric. */
+  protected DerivedMetric(@NonNull String name, @NonNull Param<?>... inputs) {
+    if (inputs.length == 0) throw new IllegalArgumentException("no inputs");
+    for (Param<?> input : inputs) {
+      if (Params.nameFor(input) == null) throw new IllegalArgumentException("unrecognized param");
+      if (!ValueType.of(input).isNumeric()) {
+        throw new IllegalArgumentException(Params.nameFor(input) + " is not numeric");
+      }
+    }
+    this.name = name;
+    this.inputs = Collections.unmodifiableList(Arrays.asList(inputs.clone()));
+  }
+
+  /**
+   * The metric from the latest value of each input, in the order they were given. Called once
+   * every input has a value, under a lock, so keep it quick and don't hold on to the array.
+   * Return NaN to emit nothing for these inputs.
+   */
+  protected abstract float compute(@NonNull float[] inputs);
+
+  public final @NonNull String name() {
+    return name;
+  }
+
+  public final @NonNull List<Param<?>> inputs() {
+    return inputs;
+  }
+
+  @Override public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,38 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/** Built-in {@link DerivedMetric}s. */
+public final class DerivedMetrics {
+  // gasoline stoichiometric AFR 14.7, 6.17 lb/gal, 454 g/lb, 0.621371 mi/km, 3600 s/h.
+  private static final float MPG_PER_KPH_PER_GS = 14.7f * 6.17f * 454f * 0.621371f / 3600f;
+
+  /**
+   * Instantaneous fuel economy of a gasoline engine, from {@link Params#MASS_AIRFLOW} and
+   * {@link Params#SPEED_KPH}<br>
+   * units: mpg (US)
+   */
+  public static final DerivedMetric MPG =
+      new DerivedMetric("MPG", Params.SPEED_KPH, Params.MASS_AIRFLOW) {
+        @Override protected float compute(@NonNull float[] inputs) {
+          return inputs[1] <= 0
+              ? Float.NaN
+              : MPG_PER_KPH_PER_GS * inputs[0] / inputs[1];
+        }
+      };
+
+  /**
+   * {@link Params#CALCULATED_LOAD_VALUE} times {@link Params#RPM}, a rough proxy for engine
+   * power output<br>
+   * units: % x rpm
+   */
+  public static final DerivedMetric LOAD_RPM =
+      new DerivedMetric("LOAD_RPM", Params.CALCULATED_LOAD_VALUE, Params.RPM) {
+        @Override protected float compute(@NonNull float[] inputs) {
+          return inputs[0] * inputs[1];
+        }
+      };
+
+  private DerivedMetrics() {
+  }
+}
@@ -2,12 +2,174 @@ package li.vin.my.deviceservice;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
 
 public interface DeviceConnection {
   /** Observe a given parameter. */
   @NonNull <T> Observable<T> observe(@NonNull Param<T> pid);
 
+  /**
+   * Like {@link #observe(Param)}, which keeps only the {@link Backpressure#latest()} value for a
+   * subscriber that falls behind, but with its own strategy for that. The device op is still
+   * shared with every other observer of {@code pid}, whatever their strategy.
+   */
+  @NonNull <T> Observable<T> observe(@NonNull Param<T> pid, @NonNull Backpressure backpressure);
+
+  /**
+   * Observe a numeric param, skipping values within {@code deadband} of the last one delivered.
+   * Services that support it apply the deadband at the source, so unchanged values never cross
+   * the binder; otherwise they're dropped as they arrive, before any subscriber is woken. One
+   * device op is shared per param and deadband.
+   */
+  @NonNull <T extends Number> Observable<T> observe(@NonNull Param<T> pid,
+      @NonNull Deadband deadband);
+
+  /**
+   * Observe a {@link DerivedMetric}, recomputed as each of its inputs arrives. Observers of the
+   * same metric share one computation, and its inputs share their device ops with any other
+   * observers of those params.
+   */
+  @NonNull Observable<Float> observe(@NonNull DerivedMetric metric);
+
+  /**
+   * Observe a float parameter at full rate, delivering straight to {@code sink} without boxing
+   * or Rx operator overhead. Unlike {@link #observe(Param)}, each call opens its own device op.
+   * Unsubscribe the returned Subscription to stop.
+   */
+  @NonNull Subscription observe(@NonNull Param<Float> pid, @NonNull FloatSink sink);
+
+  /** Int equivalent of {@link #observe(Param, FloatSink)}. */
+  @NonNull Subscription observe(@NonNull Param<Integer> pid, @NonNull IntSink sink);
+
+  /**
+   * Observe {@link Params#ACCEL_X}, {@link Params#ACCEL_Y}, {@link Params#ACCEL_Z} and {@link
+   * Params#COLLISION} together, decoding each accelerometer frame once into a reused array and
+   * delivering straight to {@code sink}. The device op is shared with {@link Params#ACCEL_RAW}
+   * observers, though not with the per-axis params, which each open their own. Only frames that
+   * arrive after the call are delivered, each stamped with its arrival time. Frames come through
+   * the device service as strings, so only the 14 character ASCII format is supported there; 4
+   * byte binary frames are dropped. Unsubscribe the returned Subscription to stop.
+   */
+  @NonNull Subscription observeAccel(@NonNull AccelSink sink);
+
+  /**
+   * Like {@link #observeAccel(AccelSink)}, but as {@link AccelBatch}es of {@code samples}
+   * consecutive samples each. Batches are buffered rather than dropped for a slow subscriber, so
+   * none of the signal goes missing.
+   *
+   * @throws IllegalArgumentException if {@code samples} is less than 1.
+   */
+  @NonNull Observable<AccelBatch> observeAccel(int samples);
+
+  /**
+   * Watch the accelerometer for harsh braking, acceleration, cornering and collisions under
+   * {@code policy}, emitting only the events, each with the samples captured around it. The
+   * samples themselves never leave the SDK. Events are buffered rather than dropped for a slow
+   * subscriber.
+   */
+  @NonNull Observable<HarshEvent> observeHarshEvents(@NonNull HarshEventPolicy policy);
+
+  /**
+   * Group numeric (float or int) parameters into a single batched device op, so that values for
+   * all of them cross the binder together under the given policy rather than one transaction per
+   * value. Nothing is opened until the first {@link ParamBatch#observe} subscription.
+   *
+   * @throws IllegalArgumentException if any param is unrecognized or not numeric.
+   */
+  @NonNull ParamBatch batch(@NonNull Collection<? extends Param<?>> params,
+      @NonNull BatchPolicy policy);
+
+  /**
+   * Observe numeric parameters together as one stream of {@link ParamUpdate}s, opened as a
+   * single batched device op and closed with a single cancel. Values gather for up to 50ms per
+   * update. Updates are buffered rather than dropped for a slow subscriber, as each one may be
+   * the only news for some param. If the device service doesn't support batching, each param is
+   * observed separately and every value arrives as its own update.
+   *
+   * @throws IllegalArgumentException if any param is unrecognized or not numeric.
+   */
+  @NonNull Observable<ParamUpdate> observeAll(@NonNull Collection<? extends Param<?>> params);
+
+  /** Like {@link #observeAll(Collection)}, grouping values under {@code policy}. */
+  @NonNull Observable<ParamUpdate> observeAll(@NonNull Collection<? extends Param<?>> params,
+      @NonNull BatchPolicy policy);
+
+  /**
+   * Observe numeric parameters as {@link ParamSnapshot}s of each one's latest value, emitted
+   * under {@code policy}, for computing values from several params that belong together in
+   * time. Values are collected over {@link #observeAll(Collection)} into primitive slots, and a
+   * subscriber that falls behind just gets the newest snapshot.
+   *
+   * @throws IllegalArgumentException if any param is unrecognized or not numeric.
+   */
+  @NonNull Observable<ParamSnapshot> observeSnapshots(
+      @NonNull Collection<? extends Param<?>> params, @NonNull SnapshotPolicy policy);
+
+  /**
+   * Observe every param in {@code params} the connected vehicle actually supports, as one merged
+   * stream. {@link #supportedPids()} is consulted first and unsupported PIDs are dropped before
+   * any device op is opened for them; params that aren't OBD-II PIDs are always observed.
+   */
+  @NonNull Observable<ParamValue<?>> observeSupported(
+      @NonNull Collection<? extends Param<?>> params);
+
+  /**
+   * Like {@link #observe(Param)}, but numeric params carried on the shared stream characteristic
+   * are served from one {@link Params#RAW_STREAM} op, demultiplexed by PID on this side. Many
+   * stream params observed together then cost one device op and one frame parse per frame.
+   * Params that can't be served that way are simply observed directly.
+   */
+  @NonNull <T> Observable<T> observeMultiplexed(@NonNull Param<T> pid);
+
+  /**
+   * Observe a numeric param downsampled to one {@link WindowStats} (min, max, mean, last) per
+   * {@code interval}, for UIs and charts that redraw far slower than the device reports. Values
+   * are aggregated as they arrive, before the hop to any delivery scheduler, and the device op is
+   * shared with every other observer of {@code pid}.
+   */
+  @NonNull <T extends Number> Observable<WindowStats> observeWindowed(@NonNull Param<T> pid,
+      long interval, @NonNull TimeUnit unit);
+
+  /**
+   * Deliver values from Observables returned after this call on {@code scheduler}, e.g.
+   * {@code AndroidSchedulers.mainThread()}. By default (null) they arrive on whichever thread the
+   * device service called back on. Sinks are always called back directly, without a hop.
+   */
+  void setDeliveryScheduler(@Nullable Scheduler scheduler);
+
+  /**
+   * Keep shared device ops open for {@code linger} after their last subscriber leaves, so e.g. two
+   * screens observing the same param in turn share one op instead of unbinding and rebinding in
+   * between. The service binding is released as soon as no op is open, lingering ones included;
+   * sinks don't linger. 0 (the default) releases immediately. Applies from the next time an op's
+   * last subscriber leaves, including ops already open.
+   */
+  void setLinger(long linger, @NonNull TimeUnit unit);
+
+  /**
+   * How ops reopen after the device service disconnects. {@link RetryPolicy#immediate()} by
+   * default. Applies to retries from this call on, including those of ops already open.
+   */
+  void setRetryPolicy(@NonNull RetryPolicy policy);
+
+  /** Disconnects and reconnect latencies so far, for tuning {@link #setRetryPolicy}. */
+  @NonNull ReconnectStats reconnectStats();
+
+  /**
+   * Latency and throughput of every device op open right now. Ops opened by {@link
+   * #observe(Param)} and friends are shared, so there's one per param however many subscribers.
+   * Sinks aren't instrumented, to keep their path as short as possible.
+   */
+  @NonNull List<OpMetrics> opMetrics();
+
+  /** Hand each op's final {@link OpMetrics} to {@code listener} as it closes, or stop (null). */
+  void setMetricsListener(@Nullable OpMetrics.Listener listener);
+
   /** Reset the DTCs. */
   @NonNull Observable<Void> resetDtcs();
 
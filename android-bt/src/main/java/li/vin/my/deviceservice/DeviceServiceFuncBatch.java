@@ -0,0 +1,42 @@
+package li.vin.my.deviceservice;
+
+import android.os.RemoteException;
+import android.support.annotation.NonNull;
+import rx.Subscriber;
+
+/*package*/ class DeviceServiceFuncBatch extends DeviceServiceFunc<ValueBatch> {
+  private final String[] names;
+  private final BatchPolicy policy;
+
+  public DeviceServiceFuncBatch(@NonNull String chipId, @NonNull String[] names,
+      @NonNull BatchPolicy policy) {
+    super(chipId, "batch");
+    this.names = names;
+    this.policy = policy;
+  }
+
+  @Override
+  protected String initOp(IDevServ iVinliService, final Subscriber<? super ValueBatch> subscriber)
+      throws Exception {
+    if (!ServiceCapabilities.has(iVinliService, ServiceCapabilities.BATCH)) {
+      throw new ServiceCapabilities.NotSupportedException("observeBatch not supported.");
+    }
+    return iVinliService.observeBatch(chipId, names, policy.maxBatchSize(), policy.maxLatencyMs(),
+        new IVinliServiceCallbackBatch.Stub() {
+          @Override public void onCompleted() throws RemoteException {
+            if (!subscriber.isUnsubscribed()) subscriber.onCompleted();
+          }
+
+          @Override public void onError(String err) throws RemoteException {
+            if (!subscriber.isUnsubscribed()) subscriber.onError(new Exception(err));
+          }
+
+          @Override public void onBatch(int[] ids, float[] values, long[] timestamps)
+              throws RemoteException {
+            if (!subscriber.isUnsubscribed()) {
+              subscriber.onNext(new ValueBatch(ids, values, timestamps));
+            }
+          }
+        });
+  }
+}
@@ -1,19 +1,42 @@
 package li.vin.my.deviceservice;
 
 import android.os.RemoteException;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import rx.Subscriber;
 
 /*package*/ class DeviceServiceFuncInt extends DeviceServiceFunc<Integer> {
+  private final Deadband deadband;
 
   public DeviceServiceFuncInt(@NonNull String chipId, @NonNull String name) {
+    this(chipId, name, null);
+  }
+
+  public DeviceServiceFuncInt(@NonNull String chipId, @NonNull String name,
+      @Nullable Deadband deadband) {
     super(chipId, name);
+    this.deadband = deadband;
   }
 
   @Override
   protected String initOp(IDevServ iVinliService, final Subscriber<? super Integer> subscriber)
       throws Exception {
-    return iVinliService.observeInt(chipId, name, new IVinliServiceCallbackInt.Stub() {
+    if (deadband == null) {
+      return iVinliService.observeInt(chipId, name, callback(subscriber, null));
+    }
+    if (ServiceCapabilities.has(iVinliService, ServiceCapabilities.DEADBAND)) {
+      return iVinliService.observeIntDeadband(chipId, name, deadband.threshold(),
+          deadband.deadTimeMs(), callback(subscriber, null));
+    }
+    // the service sends every value - drop the unchanged ones here, before anyone's woken.
+    return iVinliService.observeInt(chipId, name,
+        callback(subscriber, new DeadbandFilter(deadband)));
+  }
+
+  private static IVinliServiceCallbackInt callback(final Subscriber<? super Integer> subscriber,
+      @Nullable final DeadbandFilter filter) {
+    return new IVinliServiceCallbackInt.Stub() {
       @Override public void onCompleted() throws RemoteException {
         if (!subscriber.isUnsubscribed()) subscriber.onCompleted();
       }
@@ -23,8 +46,11 @@ import rx.Subscriber;
       }
 
       @Override public void onNext(int val) throws RemoteException {
-        if (!subscriber.isUnsubscribed()) subscriber.onNext(val);
+        if (subscriber.isUnsubscribed()) return;
+        if (filter == null || filter.accept(val, SystemClock.elapsedRealtime())) {
+          subscriber.onNext(val);
+        }
       }
-    });
+    };
   }
 }
@@ -0,0 +1,34 @@
+package li.vin.my.deviceservice;
+
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import rx.Subscriber;
+
+/*package*/ class DeviceServiceFuncIntSink extends DeviceServiceFunc<Void> {
+  private final IntSink sink;
+
+  public DeviceServiceFuncIntSink(@NonNull String chipId, @NonNull String name,
+      @NonNull IntSink sink) {
+    super(chipId, name);
+    this.sink = sink;
+  }
+
+  @Override
+  protected String initOp(IDevServ iVinliService, final Subscriber<? super Void> subscriber)
+      throws Exception {
+    return iVinliService.observeInt(chipId, name, new IVinliServiceCallbackInt.Stub() {
+      @Override public void onCompleted() throws RemoteException {
+        if (!subscriber.isUnsubscribed()) subscriber.onCompleted();
+      }
+
+      @Override public void onError(String err) throws RemoteException {
+        if (!subscriber.isUnsubscribed()) subscriber.onError(new Exception(err));
+      }
+
+      @Override public void onNext(int val) throws RemoteException {
+        if (!subscriber.isUnsubscribed()) sink.onValue(val, SystemClock.elapsedRealtimeNanos());
+      }
+    });
+  }
+}
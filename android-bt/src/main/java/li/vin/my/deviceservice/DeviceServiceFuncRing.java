@@ -0,0 +1,71 @@
+package li.vin.my.deviceservice;
+
+import android.os.ParcelFileDescriptor;
+import android.os.RemoteException;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import java.io.FileInputStream;
+import java.nio.channels.FileChannel;
+import rx.Subscriber;
+
+/*package*/ class DeviceServiceFuncRing extends DeviceServiceFunc<ValueBatch> {
+  private static final String TAG = DeviceServiceFuncRing.class.getSimpleName();
+
+  private final String[] names;
+  private final BatchPolicy policy;
+
+  public DeviceServiceFuncRing(@NonNull String chipId, @NonNull String[] names,
+      @NonNull BatchPolicy policy) {
+    super(chipId, "ring");
+    this.names = names;
+    this.policy = policy;
+  }
+
+  @Override
+  protected String initOp(IDevServ iVinliService, final Subscriber<? super ValueBatch> subscriber)
+      throws Exception {
+    if (!ServiceCapabilities.has(iVinliService, ServiceCapabilities.RING)) {
+      throw new ServiceCapabilities.NotSupportedException("observeRing not supported.");
+    }
+    return iVinliService.observeRing(chipId, names, policy.ringCapacity(),
+        policy.maxBatchSize(), policy.maxLatencyMs(), new IVinliServiceCallbackRing.Stub() {
+          private SampleRing.Reader reader;
+
+          @Override public void onCompleted() throws RemoteException {
+            if (!subscriber.isUnsubscribed()) subscriber.onCompleted();
+          }
+
+          @Override public void onError(String err) throws RemoteException {
+            if (!subscriber.isUnsubscribed()) subscriber.onError(new Exception(err));
+          }
+
+          @Override public synchronized void onRing(ParcelFileDescriptor ring)
+              throws RemoteException {
+            try {
+              // the mapping outlives the descriptor, so close it straight away.
+              FileChannel channel = new FileInputStream(ring.getFileDescriptor()).getChannel();
+              try {
+                reader = new SampleRing.Reader(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+              } finally {
+                channel.close();
+                ring.close();
+              }
+            } catch (Exception e) {
+              Log.e(TAG, "failed to map sample ring", e);
+              if (!subscriber.isUnsubscribed()) subscriber.onError(e);
+            }
+          }
+
+          @Override public synchronized void onAvailable(long writeSeq) throws RemoteException {
+            if (reader == null || subscriber.isUnsubscribed()) return;
+            long droppedBefore = reader.dropped();
+            ValueBatch batch = reader.drain(writeSeq);
+            if (reader.dropped() != droppedBefore) {
+              Log.w(TAG, "sample ring overran, " + reader.dropped() + " dropped in total");
+            }
+            if (batch != null) subscriber.onNext(batch);
+          }
+        });
+  }
+}
@@ -0,0 +1,25 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives float values from a {@link Param} without boxing them or passing them through any Rx
+ * operators. Callbacks arrive on a binder thread and should return quickly.
+ *
+ * @see DeviceConnection#observe(Param, FloatSink)
+ */
+public interface FloatSink {
+  /**
+   * Called for every value the device service delivers.
+   *
+   * @param timestampNanos arrival time, in {@link android.os.SystemClock#elapsedRealtimeNanos()}
+   * time base.
+   */
+  void onValue(float value, long timestampNanos);
+
+  /** Called once if the underlying op completes. No more values follow. */
+  void onCompleted();
+
+  /** Called once if the underlying op fails. No more values follow. */
+  void onError(@NonNull Throwable e);
+}
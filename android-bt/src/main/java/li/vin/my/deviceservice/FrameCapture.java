@@ -0,0 +1,118 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * A capture of raw characteristic notifications, as the device service receives them, for
+ * playback through {@link ReplayDeviceConnection}.
+ * <p>
+ * Format: int magic, short version, then per frame: long timestampNanos, long uuid msb, long uuid
+ * lsb, unsigned short length and the raw value bytes.
+ */
+public final class FrameCapture {
+  private static final int MAGIC = 0x56464341; // VFCA
+  private static final short VERSION = 1;
+
+  /** One raw characteristic value. */
+  public static final class Frame {
+    private final long timestampNanos;
+    private final UUID uuid;
+    private final byte[] value;
+
+    /*package*/ Frame(long timestampNanos, @NonNull UUID uuid, @NonNull byte[] value) {
+      this.timestampNanos = timestampNanos;
+      this.uuid = uuid;
+      this.value = value;
+    }
+
+    public long timestampNanos() {
+      return timestampNanos;
+    }
+
+    public @NonNull UUID uuid() {
+      return uuid;
+    }
+
+    /** The raw bytes. Not copied - don't modify. */
+    public @NonNull byte[] value() {
+      return value;
+    }
+  }
+
+  /** Appends frames to a new capture file. Not thread safe. */
+  public static final class Writer implements Closeable {
+    private final DataOutputStream out;
+
+    public static @NonNull Writer create(@NonNull File file) throws IOException {
+      return new Writer(file);
+    }
+
+    private Writer(File file) throws IOException {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)));
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+    }
+
+    public void write(long timestampNanos, @NonNull UUID uuid, @NonNull byte[] value)
+        throws IOException {
+      if (value.length > 0xffff) throw new IllegalArgumentException("frame too long");
+      out.writeLong(timestampNanos);
+      out.writeLong(uuid.getMostSignificantBits());
+      out.writeLong(uuid.getLeastSignificantBits());
+      out.writeShort(value.length);
+      out.write(value);
+    }
+
+    @Override public void close() throws IOException {
+      out.close();
+    }
+  }
+
+  /** Reads frames back one at a time. */
+  /*package*/ static final class Reader implements Closeable {
+    private final DataInputStream in;
+
+    /*package*/ Reader(@NonNull File file) throws IOException {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+          throw new IOException("not a frame capture: " + file);
+        }
+      } catch (IOException e) {
+        in.close();
+        throw e;
+      }
+    }
+
+    /** The next frame, or null at the end of the capture (including a truncated last frame). */
+    /*package*/ Frame next() throws IOException {
+      try {
+        final long timestampNanos = in.readLong();
+        final UUID uuid = new UUID(in.readLong(), in.readLong());
+        final byte[] value = new byte[in.readUnsignedShort()];
+        in.readFully(value);
+        return new Frame(timestampNanos, uuid, value);
+      } catch (EOFException e) {
+        return null;
+      }
+    }
+
+    @Override public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  private FrameCapture() {
+  }
+}
@@ -0,0 +1,78 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A harsh event found by {@link DeviceConnection#observeHarshEvents}, with the accelerometer
+ * samples captured around it under its {@link HarshEventPolicy}.
+ */
+public final class HarshEvent {
+  private final AccelBatch window;
+  private final int triggerIndex;
+  private final float peakX;
+  private final float peakY;
+  private final float peakZ;
+  private final boolean collision;
+
+  /*package*/ HarshEvent(AccelBatch window, int triggerIndex, float peakX, float peakY,
+      float peakZ, boolean collision) {
+    this.window = window;
+    this.triggerIndex = triggerIndex;
+    this.peakX = peakX;
+    this.peakY = peakY;
+    this.peakZ = peakZ;
+    this.collision = collision;
+  }
+
+  /**
+   * The captured samples, oldest first. Shorter than the policy's windows if the event came
+   * soon after observing started or the samples ended before the post window filled.
+   */
+  public @NonNull AccelBatch window() {
+    return window;
+  }
+
+  /** Index into {@link #window()} of the sample that triggered the event. */
+  public int triggerIndex() {
+    return triggerIndex;
+  }
+
+  /** When the triggering sample arrived, in {@link #window()}'s time base. */
+  public long timestampNanos() {
+    return window.timestampNanos(triggerIndex);
+  }
+
+  /** The largest deviation from the baseline during the event, in m/s^2. */
+  public float peak() {
+    return (float) Math.sqrt(peakX * peakX + peakY * peakY + peakZ * peakZ);
+  }
+
+  /**
+   * X component of the {@link #peak()} deviation. With the y and z components, and knowing how
+   * the device is mounted, this tells braking from cornering.
+   */
+  public float peakX() {
+    return peakX;
+  }
+
+  public float peakY() {
+    return peakY;
+  }
+
+  public float peakZ() {
+    return peakZ;
+  }
+
+  /** Whether the device flagged a collision during the event. */
+  public boolean collision() {
+    return collision;
+  }
+
+  @Override public String toString() {
+    return "HarshEvent{peak=" + peak()
+        + ", collision=" + collision
+        + ", samples=" + window.size()
+        + ", triggerIndex=" + triggerIndex
+        + '}';
+  }
+}
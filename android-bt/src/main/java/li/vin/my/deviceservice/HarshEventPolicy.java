@@ -0,0 +1,81 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@link DeviceConnection#observeHarshEvents} counts as a harsh event, and how much of the
+ * accelerometer signal around it to capture. Samples are compared against a slowly tracked
+ * baseline rather than zero, so gravity and however the device happens to be mounted cancel out.
+ * The baseline follows samples over threshold four times more slowly, so an event hardly moves it
+ * but a lasting shift, like the device being remounted, stops triggering after a few time
+ * constants. A set collision flag always triggers.
+ */
+public final class HarshEventPolicy {
+  private final float threshold;
+  private final int minSamples;
+  private final int preSamples;
+  private final int postSamples;
+  private final long baselineNanos;
+
+  /**
+   * Trigger when a sample deviates from the baseline by at least {@code threshold} m/s^2 in any
+   * direction, e.g. around 3.5 for harsh braking or cornering. Captures 50 samples either side,
+   * with a 5s baseline time constant.
+   */
+  public static @NonNull HarshEventPolicy of(float threshold) {
+    if (!(threshold > 0)) throw new IllegalArgumentException("threshold must be > 0");
+    return new HarshEventPolicy(threshold, 1, 50, 50, TimeUnit.SECONDS.toNanos(5));
+  }
+
+  private HarshEventPolicy(float threshold, int minSamples, int preSamples, int postSamples,
+      long baselineNanos) {
+    this.threshold = threshold;
+    this.minSamples = minSamples;
+    this.preSamples = preSamples;
+    this.postSamples = postSamples;
+    this.baselineNanos = baselineNanos;
+  }
+
+  /** Copy of this policy that only triggers after {@code minSamples} in a row over threshold. */
+  public @NonNull HarshEventPolicy withMinSamples(int minSamples) {
+    if (minSamples < 1) throw new IllegalArgumentException("minSamples < 1");
+    return new HarshEventPolicy(threshold, minSamples, preSamples, postSamples, baselineNanos);
+  }
+
+  /**
+   * Copy of this policy that captures {@code preSamples} before the triggering sample and
+   * {@code postSamples} after it. Triggers within the post window belong to the same event.
+   */
+  public @NonNull HarshEventPolicy withWindows(int preSamples, int postSamples) {
+    if (preSamples < 0 || postSamples < 0) throw new IllegalArgumentException("window < 0");
+    return new HarshEventPolicy(threshold, minSamples, preSamples, postSamples, baselineNanos);
+  }
+
+  /** Copy of this policy whose baseline follows the signal with {@code timeConstant}. */
+  public @NonNull HarshEventPolicy withBaseline(long timeConstant, @NonNull TimeUnit unit) {
+    if (timeConstant <= 0) throw new IllegalArgumentException("timeConstant must be > 0");
+    return new HarshEventPolicy(threshold, minSamples, preSamples, postSamples,
+        unit.toNanos(timeConstant));
+  }
+
+  /*package*/ float threshold() {
+    return threshold;
+  }
+
+  /*package*/ int minSamples() {
+    return minSamples;
+  }
+
+  /*package*/ int preSamples() {
+    return preSamples;
+  }
+
+  /*package*/ int postSamples() {
+    return postSamples;
+  }
+
+  /*package*/ long baselineNanos() {
+    return baselineNanos;
+  }
+}
@@ -0,0 +1,43 @@
+package li.vin.my.deviceservice;
+
+/**
+ * Allocation-free parsing of ASCII hex straight out of characteristic bytes.
+ */
+/*package*/ final class Hex {
+
+  /** Value of a single ASCII hex digit, or -1 if {@code c} is not one. */
+  /*package*/ static int digit(int c) {
+    if (c >= '0' && c <= '9') return c - '0';
+    if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+    if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+    return -1;
+  }
+
+  /** Parse the two hex digits at {@code off}, i.e. one encoded byte. */
+  /*package*/ static int byteAt(byte[] val, int off) {
+    return parse(val, off, off + 2);
+  }
+
+  /**
+   * Parse {@code [from, to)} as an unsigned hex int. Behaves like
+   * {@code Integer.parseInt(new String(val, from, to - from), 16)} for the
+   * values we see on the wire, minus the String.
+   */
+  /*package*/ static int parse(byte[] val, int from, int to) {
+    if (from >= to || to > val.length) {
+      throw new NumberFormatException("bad hex range [" + from + ", " + to + ")");
+    }
+    int result = 0;
+    for (int i = from; i < to; i++) {
+      int d = digit(val[i]);
+      if (d < 0) {
+        throw new NumberFormatException("bad hex digit '" + (char) val[i] + "' at " + i);
+      }
+      result = (result << 4) | d;
+    }
+    return result;
+  }
+
+  private Hex() {
+  }
+}
@@ -0,0 +1,103 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of nanosecond durations, in the style of HdrHistogram: every power of two
+ * is split into 8 buckets, so any recorded value is reported to within 12.5% while the whole
+ * range fits in a few KB. Recording is lock-free and allocation-free.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts;
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /*package*/ LatencyHistogram() {
+    counts = new AtomicLongArray(BUCKETS);
+  }
+
+  /*package*/ void record(long nanos) {
+    if (nanos < 0) return;
+    counts.incrementAndGet(bucketOf(nanos));
+    count.incrementAndGet();
+    total.addAndGet(nanos);
+    long m;
+    while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) {
+      // raced another recorder, try again.
+    }
+  }
+
+  /** Point-in-time copy, e.g. to hand to a listener while this keeps recording. */
+  /*package*/ LatencyHistogram copy() {
+    final LatencyHistogram copy = new LatencyHistogram();
+    for (int i = 0; i < BUCKETS; i++) {
+      final long c = counts.get(i);
+      if (c != 0) copy.counts.set(i, c);
+    }
+    copy.count.set(count.get());
+    copy.total.set(total.get());
+    copy.max.set(max.get());
+    return copy;
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  public long maxNanos() {
+    return max.get();
+  }
+
+  public long meanNanos() {
+    final long c = count.get();
+    return c == 0
+        ? 0
+        : total.get() / c;
+  }
+
+  /**
+   * The value at or below which {@code percentile} (0 - 100) of recorded values fall, rounded up
+   * to the top of its bucket. 0 if nothing was recorded.
+   */
+  public long valueAtPercentileNanos(double percentile) {
+    final long c = count.get();
+    if (c == 0) return 0;
+    final long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * c));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) return Math.min(highestInBucket(i), max.get());
+    }
+    return max.get();
+  }
+
+  private static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    final int exp = 63 - Long.numberOfLeadingZeros(value);
+    final int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  private static long highestInBucket(int bucket) {
+    if (bucket < SUB_BUCKETS) return bucket;
+    if (bucket == BUCKETS - 1) return Long.MAX_VALUE;
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long sub = SUB_BUCKETS + bucket % SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  @Override public String toString() {
+    return "LatencyHistogram{count=" + count()
+        + ", meanUs=" + meanNanos() / 1000
+        + ", p50Us=" + valueAtPercentileNanos(50) / 1000
+        + ", p99Us=" + valueAtPercentileNanos(99) / 1000
+        + ", maxUs=" + maxNanos() / 1000
+        + '}';
+  }
+}
@@ -0,0 +1,59 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Gathers a connection's {@link AccelSink} samples into {@link AccelBatch}es of {@code size},
+ * emitting a short final batch if the samples end part way through one. Doesn't support
+ * backpressure; buffer downstream.
+ */
+/*package*/ final class OnSubscribeAccelBatch implements Observable.OnSubscribe<AccelBatch> {
+  private final DeviceConnection conn;
+  private final int size;
+
+  /*package*/ OnSubscribeAccelBatch(@NonNull DeviceConnection conn, int size) {
+    if (size < 1) throw new IllegalArgumentException("size < 1");
+    this.conn = conn;
+    this.size = size;
+  }
+
+  @Override public void call(final Subscriber<? super AccelBatch> child) {
+    // samples arrive one at a time, so the batch being filled needs no lock.
+    child.add(conn.observeAccel(new AccelSink() {
+      private float[] samples = new float[3 * size];
+      private boolean[] collisions = new boolean[size];
+      private long[] timestamps = new long[size];
+      private int n;
+
+      @Override public void onSample(@NonNull float[] xyz, boolean collision,
+          long timestampNanos) {
+        if (child.isUnsubscribed()) return;
+        System.arraycopy(xyz, 0, samples, 3 * n, 3);
+        collisions[n] = collision;
+        timestamps[n] = timestampNanos;
+        if (++n < size) return;
+        final AccelBatch batch = new AccelBatch(samples, collisions, timestamps, size);
+        samples = new float[3 * size];
+        collisions = new boolean[size];
+        timestamps = new long[size];
+        n = 0;
+        child.onNext(batch);
+      }
+
+      @Override public void onCompleted() {
+        if (n > 0 && !child.isUnsubscribed()) {
+          child.onNext(new AccelBatch(Arrays.copyOf(samples, 3 * n),
+              Arrays.copyOf(collisions, n), Arrays.copyOf(timestamps, n), n));
+        }
+        child.onCompleted();
+      }
+
+      @Override public void onError(@NonNull Throwable e) {
+        child.onError(e);
+      }
+    }));
+  }
+}
@@ -0,0 +1,86 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.List;
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Subscribes to each input of a {@link DerivedMetric}, keeps their latest values in a primitive
+ * array and emits the recomputed metric whenever one arrives, once all have. Inputs may call
+ * back on different threads, so folding and emitting happen under one lock.
+ */
+/*package*/ final class OnSubscribeDerived implements Observable.OnSubscribe<Float> {
+  private final DerivedMetric metric;
+  private final List<? extends Observable<?>> inputs;
+
+  /*package*/ OnSubscribeDerived(@NonNull DerivedMetric metric,
+      @NonNull List<? extends Observable<?>> inputs) {
+    this.metric = metric;
+    this.inputs = inputs;
+  }
+
+  @Override public void call(final Subscriber<? super Float> child) {
+    final State state = new State(child, inputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      final int slot = i;
+      final Subscriber<Object> input = new Subscriber<Object>() {
+        @Override public void onCompleted() {
+          state.completed();
+        }
+
+        @Override public void onError(Throwable e) {
+          state.error(e);
+        }
+
+        @Override public void onNext(Object val) {
+          state.next(slot, ((Number) val).floatValue());
+        }
+      };
+      child.add(input);
+      inputs.get(i).unsafeSubscribe(input);
+    }
+  }
+
+  private final class State {
+    private final Subscriber<? super Float> child;
+    private final float[] latest;
+    private final boolean[] present;
+    // guarded by this.
+    private int missing;
+    private int active;
+    private boolean done;
+
+    private State(Subscriber<? super Float> child, int size) {
+      this.child = child;
+      latest = new float[size];
+      present = new boolean[size];
+      missing = size;
+      active = size;
+    }
+
+    /*package*/ synchronized void next(int slot, float value) {
+      if (done) return;
+      latest[slot] = value;
+      if (!present[slot]) {
+        present[slot] = true;
+        missing--;
+      }
+      if (missing > 0) return;
+      final float out = metric.compute(latest);
+      if (!Float.isNaN(out)) child.onNext(out);
+    }
+
+    /*package*/ synchronized void completed() {
+      if (done || --active > 0) return;
+      done = true;
+      child.onCompleted();
+    }
+
+    /*package*/ synchronized void error(Throwable e) {
+      if (done) return;
+      done = true;
+      child.onError(e);
+    }
+  }
+}
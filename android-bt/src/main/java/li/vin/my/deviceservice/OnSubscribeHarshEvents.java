@@ -0,0 +1,191 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Runs a connection's {@link AccelSink} samples through a {@link HarshEventPolicy}, keeping the
+ * last {@code preSamples} in a ring so they can be copied into the window of an event when it
+ * triggers, and emitting each event once its post window fills. Only events leave here. Doesn't
+ * support backpressure; buffer downstream.
+ */
+/*package*/ final class OnSubscribeHarshEvents implements Observable.OnSubscribe<HarshEvent> {
+  // how much more slowly the baseline follows samples over threshold.
+  private static final int OVER_THRESHOLD_SLOWDOWN = 4;
+
+  private final DeviceConnection conn;
+  private final HarshEventPolicy policy;
+
+  /*package*/ OnSubscribeHarshEvents(@NonNull DeviceConnection conn,
+      @NonNull HarshEventPolicy policy) {
+    this.conn = conn;
+    this.policy = policy;
+  }
+
+  @Override public void call(final Subscriber<? super HarshEvent> child) {
+    child.add(conn.observeAccel(new Detector(policy, child)));
+  }
+
+  /** Samples arrive one at a time, so none of this needs a lock. */
+  /*package*/ static final class Detector implements AccelSink {
+    private final HarshEventPolicy policy;
+    private final Subscriber<? super HarshEvent> child;
+
+    // the last preSamples samples, oldest at ringHead once full.
+    private final float[] ringSamples;
+    private final boolean[] ringCollisions;
+    private final long[] ringTimestamps;
+    private int ringHead;
+    private int ringCount;
+
+    private final float[] baseline = new float[3];
+    private boolean hasBaseline;
+    private long lastTimestamp;
+    private int run;
+
+    // the event being captured, if any.
+    private float[] samples;
+    private boolean[] collisions;
+    private long[] timestamps;
+    private int n;
+    private int triggerIndex;
+    private int remaining;
+    private float peakX;
+    private float peakY;
+    private float peakZ;
+    private float peakSq;
+    private boolean collision;
+
+    /*package*/ Detector(HarshEventPolicy policy, Subscriber<? super HarshEvent> child) {
+      this.policy = policy;
+      this.child = child;
+      final int pre = policy.preSamples();
+      ringSamples = new float[3 * pre];
+      ringCollisions = new boolean[pre];
+      ringTimestamps = new long[pre];
+    }
+
+    @Override public void onSample(@NonNull float[] xyz, boolean collision, long timestampNanos) {
+      if (child.isUnsubscribed()) return;
+      if (!hasBaseline) {
+        System.arraycopy(xyz, 0, baseline, 0, 3);
+        lastTimestamp = timestampNanos;
+        hasBaseline = true;
+      }
+      final float dx = xyz[0] - baseline[0];
+      final float dy = xyz[1] - baseline[1];
+      final float dz = xyz[2] - baseline[2];
+      final float devSq = dx * dx + dy * dy + dz * dz;
+      final float threshold = policy.threshold();
+      final boolean over = devSq >= threshold * threshold;
+
+      if (samples != null) {
+        append(xyz, collision, timestampNanos);
+        track(dx, dy, dz, devSq, collision);
+        if (--remaining == 0) emit();
+      } else {
+        run = over
+            ? run + 1
+            : 0;
+        if (collision || run >= policy.minSamples()) {
+          start();
+          append(xyz, collision, timestampNanos);
+          track(dx, dy, dz, devSq, collision);
+          run = 0;
+          if (remaining == 0) emit();
+        }
+      }
+      follow(xyz, timestampNanos, over);
+      lastTimestamp = timestampNanos;
+      remember(xyz, collision, timestampNanos);
+    }
+
+    @Override public void onCompleted() {
+      if (samples != null && !child.isUnsubscribed()) {
+        child.onNext(event(new AccelBatch(Arrays.copyOf(samples, 3 * n),
+            Arrays.copyOf(collisions, n), Arrays.copyOf(timestamps, n), n)));
+      }
+      child.onCompleted();
+    }
+
+    @Override public void onError(@NonNull Throwable e) {
+      child.onError(e);
+    }
+
+    // exponential moving average over elapsed time, so it doesn't depend on the sample rate.
+    // slower over threshold, so an event barely moves it but a lasting offset is absorbed.
+    private void follow(float[] xyz, long timestampNanos, boolean over) {
+      final long dt = timestampNanos - lastTimestamp;
+      if (dt <= 0) return;
+      final double timeConstant = over
+          ? (double) policy.baselineNanos() * OVER_THRESHOLD_SLOWDOWN
+          : policy.baselineNanos();
+      final float alpha = (float) -Math.expm1(-dt / timeConstant);
+      for (int i = 0; i < 3; i++) baseline[i] += alpha * (xyz[i] - baseline[i]);
+    }
+
+    private void remember(float[] xyz, boolean collision, long timestampNanos) {
+      final int pre = ringCollisions.length;
+      if (pre == 0) return;
+      final int slot = (ringHead + ringCount) % pre;
+      System.arraycopy(xyz, 0, ringSamples, 3 * slot, 3);
+      ringCollisions[slot] = collision;
+      ringTimestamps[slot] = timestampNanos;
+      if (ringCount < pre) {
+        ringCount++;
+      } else {
+        ringHead = (ringHead + 1) % pre;
+      }
+    }
+
+    private void start() {
+      final int size = ringCount + 1 + policy.postSamples();
+      samples = new float[3 * size];
+      collisions = new boolean[size];
+      timestamps = new long[size];
+      final int pre = ringCollisions.length;
+      for (int i = 0; i < ringCount; i++) {
+        final int slot = (ringHead + i) % pre;
+        System.arraycopy(ringSamples, 3 * slot, samples, 3 * i, 3);
+        collisions[i] = ringCollisions[slot];
+        timestamps[i] = ringTimestamps[slot];
+      }
+      n = ringCount;
+      triggerIndex = ringCount;
+      remaining = policy.postSamples();
+      peakSq = -1;
+      collision = false;
+    }
+
+    private void append(float[] xyz, boolean collision, long timestampNanos) {
+      System.arraycopy(xyz, 0, samples, 3 * n, 3);
+      collisions[n] = collision;
+      timestamps[n] = timestampNanos;
+      n++;
+    }
+
+    private void track(float dx, float dy, float dz, float devSq, boolean collision) {
+      if (devSq > peakSq) {
+        peakSq = devSq;
+        peakX = dx;
+        peakY = dy;
+        peakZ = dz;
+      }
+      this.collision |= collision;
+    }
+
+    private void emit() {
+      final HarshEvent event = event(new AccelBatch(samples, collisions, timestamps, n));
+      samples = null;
+      collisions = null;
+      timestamps = null;
+      child.onNext(event);
+    }
+
+    private HarshEvent event(AccelBatch window) {
+      return new HarshEvent(window, triggerIndex, peakX, peakY, peakZ, collision);
+    }
+  }
+}
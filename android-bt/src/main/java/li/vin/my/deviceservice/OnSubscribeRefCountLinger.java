@@ -0,0 +1,129 @@
+package li.vin.my.deviceservice;
+
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.observables.ConnectableObservable;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Like {@link ConnectableObservable#refCount()}, but after the last subscriber leaves the
+ * connection is kept for {@code lingerMs}, read as each linger starts, before disconnecting. A
+ * subscriber arriving in that window picks the existing connection (and, for a replaying source,
+ * its latest value) straight back up.
+ */
+/*package*/ final class OnSubscribeRefCountLinger<T> implements Observable.OnSubscribe<T> {
+  private final ConnectableObservable<? extends T> source;
+  private final Handler handler;
+  private final Func0<Long> lingerMs;
+
+  // guarded by this. generation moves on whenever the source terminates, so releases by
+  // subscribers of an earlier connection don't count against the current one.
+  private int subscribers;
+  private int generation;
+  private Subscription connection;
+
+  /*package*/ static <T> Observable<T> refCount(@NonNull ConnectableObservable<? extends T> source,
+      @NonNull Handler handler, @NonNull Func0<Long> lingerMs) {
+    return Observable.create(new OnSubscribeRefCountLinger<T>(source, handler, lingerMs));
+  }
+
+  private OnSubscribeRefCountLinger(ConnectableObservable<? extends T> source, Handler handler,
+      Func0<Long> lingerMs) {
+    this.source = source;
+    this.handler = handler;
+    this.lingerMs = lingerMs;
+  }
+
+  @Override public void call(final Subscriber<? super T> child) {
+    final int gen;
+    final boolean connect;
+    synchronized (this) {
+      handler.removeCallbacks(disconnect);
+      gen = generation;
+      connect = subscribers++ == 0 && connection == null;
+    }
+    child.add(Subscriptions.create(new Action0() {
+      @Override public void call() {
+        release(gen);
+      }
+    }));
+    // connect first - after a terminal event that's what replaces the terminated connection, so
+    // the child doesn't just get the old terminal event replayed. A replaying source keeps
+    // whatever arrives in between.
+    if (connect) {
+      source.connect(new Action1<Subscription>() {
+        @Override public void call(Subscription s) {
+          synchronized (OnSubscribeRefCountLinger.this) {
+            // unless everyone left meanwhile, with no lingering disconnect to pick it up.
+            if (gen == generation && (subscribers > 0 || lingerMs.call() > 0)) {
+              connection = s;
+              return;
+            }
+          }
+          s.unsubscribe();
+        }
+      });
+    }
+    source.unsafeSubscribe(new Subscriber<T>(child) {
+      @Override public void onCompleted() {
+        terminated(gen);
+        child.onCompleted();
+      }
+
+      @Override public void onError(Throwable e) {
+        terminated(gen);
+        child.onError(e);
+      }
+
+      @Override public void onNext(T t) {
+        child.onNext(t);
+      }
+    });
+  }
+
+  private void release(int gen) {
+    synchronized (this) {
+      if (gen != generation || --subscribers > 0) return;
+      final long linger = lingerMs.call();
+      if (linger > 0) {
+        handler.postDelayed(disconnect, linger);
+        return;
+      }
+    }
+    disconnect.run();
+  }
+
+  // like refCount, start over once the source terminates so the next subscriber reconnects.
+  private void terminated(int gen) {
+    final Subscription s;
+    synchronized (this) {
+      if (gen != generation) return;
+      generation++;
+      subscribers = 0;
+      s = connection;
+      connection = null;
+      handler.removeCallbacks(disconnect);
+    }
+    // marks it done now rather than after delivery, so a child resubscribing from its terminal
+    // callback (e.g. retry) gets a fresh connection.
+    if (s != null) s.unsubscribe();
+  }
+
+  private final Runnable disconnect = new Runnable() {
+    @Override public void run() {
+      final Subscription s;
+      synchronized (OnSubscribeRefCountLinger.this) {
+        if (subscribers > 0) return;
+        s = connection;
+        connection = null;
+      }
+      if (s != null) s.unsubscribe();
+    }
+  };
+}
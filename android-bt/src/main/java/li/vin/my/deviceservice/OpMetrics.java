@@ -0,0 +1,99 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of one device op's latency and throughput, from {@link DeviceConnection#opMetrics()}
+ * or handed to an {@link Listener} as the op closes. Times are nanos; -1 for anything that hasn't
+ * happened yet.
+ */
+public final class OpMetrics {
+  private final String label;
+  private final long bindLatencyNanos;
+  private final long timeToFirstValueNanos;
+  private final long values;
+  private final long dropped;
+  private final long durationNanos;
+  private final LatencyHistogram interArrival;
+  private final boolean closed;
+
+  /*package*/ OpMetrics(String label, long bindLatencyNanos, long timeToFirstValueNanos,
+      long values, long dropped, long durationNanos, LatencyHistogram interArrival,
+      boolean closed) {
+    this.label = label;
+    this.bindLatencyNanos = bindLatencyNanos;
+    this.timeToFirstValueNanos = timeToFirstValueNanos;
+    this.values = values;
+    this.dropped = dropped;
+    this.durationNanos = durationNanos;
+    this.interArrival = interArrival;
+    this.closed = closed;
+  }
+
+  /** The observed param's name, or a description of the op. */
+  @NonNull public String label() {
+    return label;
+  }
+
+  /** From the op opening to the device service being available to it. */
+  public long bindLatencyNanos() {
+    return bindLatencyNanos;
+  }
+
+  /** From the op opening to its first value arriving from the device service. */
+  public long timeToFirstValueNanos() {
+    return timeToFirstValueNanos;
+  }
+
+  /** Values that arrived from the device service. */
+  public long values() {
+    return values;
+  }
+
+  /**
+   * Values subscribers' {@link Backpressure} discarded because they weren't keeping up, summed
+   * over subscribers - so a value two subscribers both missed counts twice.
+   */
+  public long dropped() {
+    return dropped;
+  }
+
+  /** How long the op has been (or was) open. */
+  public long durationNanos() {
+    return durationNanos;
+  }
+
+  public float valuesPerSecond() {
+    return durationNanos <= 0
+        ? 0
+        : values * (float) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+  }
+
+  /** Time between consecutive values. */
+  @NonNull public LatencyHistogram interArrival() {
+    return interArrival;
+  }
+
+  /** Whether the op has closed, so these are its final figures. */
+  public boolean closed() {
+    return closed;
+  }
+
+  @Override public String toString() {
+    return "OpMetrics{" + label
+        + ", bindMs=" + bindLatencyNanos / 1000000
+        + ", firstValueMs=" + timeToFirstValueNanos / 1000000
+        + ", values=" + values
+        + ", dropped=" + dropped
+        + ", perSecond=" + valuesPerSecond()
+        + ", interArrival=" + interArrival
+        + ", closed=" + closed
+        + '}';
+  }
+
+  /** Told about each op's final metrics, on whichever thread closed it. Keep it quick. */
+  public interface Listener {
+    void onOpClosed(@NonNull OpMetrics metrics);
+  }
+}
@@ -0,0 +1,86 @@
+package li.vin.my.deviceservice;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import java.util.concurrent.atomic.AtomicLong;
+import rx.functions.Action0;
+import rx.functions.Action1;
+
+/**
+ * Records {@link OpMetrics} for one op from hooks in its chain: when the op opens, when the
+ * service becomes available to it, each value, and each value a subscriber's {@link Backpressure}
+ * drops.
+ */
+/*package*/ final class OpRecorder {
+  private final String label;
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final LatencyHistogram interArrival = new LatencyHistogram();
+  private volatile long openedAt = -1;
+  private volatile long boundAt = -1;
+  private volatile long firstAt = -1;
+  // values of one op arrive one at a time, so read-then-write on this is enough.
+  private volatile long lastAt = -1;
+  // the latest value and its arrival, paired, so a replayed value can be told from a fresh one.
+  private final Object latestLock = new Object();
+  private Object latest;
+  private long latestAt = -1;
+
+  /*package*/ OpRecorder(@NonNull String label) {
+    this.label = label;
+  }
+
+  /*package*/ void open(long now) {
+    if (openedAt < 0) openedAt = now;
+  }
+
+  /*package*/ final Action1<Object> onBound = new Action1<Object>() {
+    @Override public void call(Object o) {
+      if (boundAt < 0) boundAt = SystemClock.elapsedRealtimeNanos();
+    }
+  };
+
+  /*package*/ final Action1<Object> onReceived = new Action1<Object>() {
+    @Override public void call(Object o) {
+      final long now = SystemClock.elapsedRealtimeNanos();
+      if (received.getAndIncrement() == 0) firstAt = now;
+      if (lastAt >= 0) interArrival.record(now - lastAt);
+      lastAt = now;
+      synchronized (latestLock) {
+        latest = o;
+        latestAt = now;
+      }
+    }
+  };
+
+  /**
+   * When {@code value} arrived, if it's still the latest value this op received; otherwise -1.
+   * Compared by identity, so a value replayed to a late subscriber keeps its original arrival.
+   */
+  /*package*/ long arrivalOf(Object value) {
+    synchronized (latestLock) {
+      return latest == value ? latestAt : -1;
+    }
+  }
+
+  /*package*/ final Action0 onDropped = new Action0() {
+    @Override public void call() {
+      dropped.incrementAndGet();
+    }
+  };
+
+  /*package*/ @NonNull OpMetrics snapshot(long now, boolean closed) {
+    final long opened = openedAt;
+    final long bound = boundAt;
+    final long first = firstAt;
+    final long values = received.get();
+    return new OpMetrics(label,
+        opened < 0 || bound < 0 ? -1 : bound - opened,
+        opened < 0 || first < 0 ? -1 : first - opened,
+        values,
+        dropped.get(),
+        opened < 0 ? 0 : now - opened,
+        interArrival.copy(),
+        closed);
+  }
+}
@@ -0,0 +1,41 @@
+package li.vin.my.deviceservice;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Picks the values for one batch id out of a stream of {@link ValueBatch}es.
+ */
+/*package*/ final class OperatorBatchDemux<T> implements Observable.Operator<T, ValueBatch> {
+  private final int id;
+  private final ValueType type;
+
+  /*package*/ OperatorBatchDemux(int id, ValueType type) {
+    this.id = id;
+    this.type = type;
+  }
+
+  @Override public Subscriber<? super ValueBatch> call(final Subscriber<? super T> child) {
+    // one batch fans out to any number of values, so don't chain the child's requests upstream.
+    Subscriber<ValueBatch> parent = new Subscriber<ValueBatch>() {
+      @Override public void onCompleted() {
+        child.onCompleted();
+      }
+
+      @Override public void onError(Throwable e) {
+        child.onError(e);
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override public void onNext(ValueBatch batch) {
+        for (int i = 0, n = batch.size(); i < n; i++) {
+          if (batch.ids[i] == id && !child.isUnsubscribed()) {
+            child.onNext((T) type.box(batch.values[i]));
+          }
+        }
+      }
+    };
+    child.add(parent);
+    return parent;
+  }
+}
@@ -0,0 +1,137 @@
+package li.vin.my.deviceservice;
+
+import rx.Observable;
+import rx.Producer;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+
+/**
+ * Hops values to a scheduler one at a time, only requesting the next from upstream once the last
+ * has been delivered. Unlike {@link Observable#observeOn}, which requests a whole ring buffer
+ * ahead, this leaves the subscriber's {@link Backpressure} upstream of it to decide what happens
+ * to values that arrive while the scheduler is busy.
+ */
+/*package*/ final class OperatorDeliverOn<T> implements Observable.Operator<T, T> {
+  private final Scheduler scheduler;
+
+  /*package*/ OperatorDeliverOn(Scheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  @Override public Subscriber<? super T> call(final Subscriber<? super T> child) {
+    final Scheduler.Worker worker = scheduler.createWorker();
+    final DeliverOnSubscriber<T> parent = new DeliverOnSubscriber<>(child, worker);
+    child.add(worker);
+    child.add(parent);
+    child.setProducer(new Producer() {
+      @Override public void request(long n) {
+        parent.requestMore(n);
+      }
+    });
+    return parent;
+  }
+
+  private static final class DeliverOnSubscriber<T> extends Subscriber<T> {
+    private final Subscriber<? super T> child;
+    private final Scheduler.Worker worker;
+    private final Action0 drain = new Action0() {
+      @Override public void call() {
+        drain();
+      }
+    };
+
+    // guarded by this.
+    private long demand;
+    private boolean pending;
+    private boolean hasValue;
+    private T value;
+    private boolean done;
+    private Throwable error;
+    private boolean terminated;
+
+    private DeliverOnSubscriber(Subscriber<? super T> child, Scheduler.Worker worker) {
+      this.child = child;
+      this.worker = worker;
+    }
+
+    @Override public void onStart() {
+      // nothing until the child asks.
+      request(0);
+    }
+
+    private void requestMore(long n) {
+      if (n <= 0) return;
+      synchronized (this) {
+        demand = demand + n < 0
+            ? Long.MAX_VALUE
+            : demand + n;
+      }
+      requestNext();
+    }
+
+    private void requestNext() {
+      synchronized (this) {
+        if (pending || hasValue || done || demand == 0) return;
+        pending = true;
+      }
+      request(1);
+    }
+
+    @Override public void onNext(T t) {
+      synchronized (this) {
+        value = t;
+        hasValue = true;
+        pending = false;
+      }
+      worker.schedule(drain);
+    }
+
+    @Override public void onCompleted() {
+      terminate(null);
+    }
+
+    @Override public void onError(Throwable e) {
+      terminate(e);
+    }
+
+    private void terminate(Throwable e) {
+      synchronized (this) {
+        done = true;
+        error = e;
+      }
+      worker.schedule(drain);
+    }
+
+    // the worker runs one action at a time, so deliveries never overlap.
+    private void drain() {
+      final boolean emit;
+      final T t;
+      final boolean terminate;
+      final Throwable e;
+      synchronized (this) {
+        emit = hasValue;
+        t = value;
+        if (emit) {
+          hasValue = false;
+          value = null;
+          if (demand != Long.MAX_VALUE) demand--;
+        }
+        terminate = done && !terminated;
+        terminated |= terminate;
+        e = error;
+      }
+      if (child.isUnsubscribed()) return;
+      if (emit) child.onNext(t);
+      if (terminate) {
+        if (e == null) {
+          child.onCompleted();
+        } else {
+          child.onError(e);
+        }
+        return;
+      }
+      requestNext();
+    }
+  }
+}
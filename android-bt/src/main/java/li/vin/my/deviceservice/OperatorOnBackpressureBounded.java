@@ -0,0 +1,156 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.Nullable;
+import java.util.ArrayDeque;
+import rx.Observable;
+import rx.Producer;
+import rx.Subscriber;
+import rx.functions.Action0;
+
+/**
+ * Buffers up to a fixed number of values for a child that isn't requesting, then drops either
+ * the oldest buffered value or the one arriving, telling {@code onDrop} about each. Terminal
+ * events are delivered once the buffer drains.
+ */
+/*package*/ final class OperatorOnBackpressureBounded<T> implements Observable.Operator<T, T> {
+  // ArrayDeque takes no nulls.
+  private static final Object NULL = new Object();
+
+  private final int capacity;
+  private final boolean dropOldest;
+  private final Action0 onDrop;
+
+  /*package*/ OperatorOnBackpressureBounded(int capacity, boolean dropOldest,
+      @Nullable Action0 onDrop) {
+    this.capacity = capacity;
+    this.dropOldest = dropOldest;
+    this.onDrop = onDrop;
+  }
+
+  @Override public Subscriber<? super T> call(final Subscriber<? super T> child) {
+    final BoundedProducer<T> producer = new BoundedProducer<>(child, capacity, dropOldest,
+        onDrop);
+    final Subscriber<T> parent = new Subscriber<T>() {
+      @Override public void onStart() {
+        request(Long.MAX_VALUE);
+      }
+
+      @Override public void onCompleted() {
+        producer.terminate(null);
+      }
+
+      @Override public void onError(Throwable e) {
+        producer.terminate(e);
+      }
+
+      @Override public void onNext(T t) {
+        producer.offer(t);
+      }
+    };
+    child.add(parent);
+    child.setProducer(producer);
+    return parent;
+  }
+
+  private static final class BoundedProducer<T> implements Producer {
+    private final Subscriber<? super T> child;
+    private final int capacity;
+    private final boolean dropOldest;
+    private final Action0 onDrop;
+
+    // guarded by this.
+    private final ArrayDeque<Object> queue;
+    private long requested;
+    private boolean done;
+    private Throwable error;
+    private boolean emitting;
+    private boolean missed;
+
+    private BoundedProducer(Subscriber<? super T> child, int capacity, boolean dropOldest,
+        Action0 onDrop) {
+      this.child = child;
+      this.capacity = capacity;
+      this.dropOldest = dropOldest;
+      this.onDrop = onDrop;
+      queue = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    @Override public void request(long n) {
+      if (n <= 0) return;
+      synchronized (this) {
+        requested = requested + n < 0
+            ? Long.MAX_VALUE
+            : requested + n;
+      }
+      drain();
+    }
+
+    private void offer(T t) {
+      final boolean dropped;
+      synchronized (this) {
+        dropped = queue.size() == capacity;
+        if (!dropped || dropOldest) {
+          if (dropped) queue.poll();
+          queue.offer(t == null ? NULL : t);
+        }
+      }
+      if (dropped && onDrop != null) onDrop.call();
+      drain();
+    }
+
+    private void terminate(Throwable e) {
+      synchronized (this) {
+        done = true;
+        error = e;
+      }
+      drain();
+    }
+
+    private void drain() {
+      synchronized (this) {
+        if (emitting) {
+          missed = true;
+          return;
+        }
+        emitting = true;
+      }
+      for (;;) {
+        for (;;) {
+          final Object o;
+          synchronized (this) {
+            if (requested == 0 || queue.isEmpty()) break;
+            o = queue.poll();
+            if (requested != Long.MAX_VALUE) requested--;
+          }
+          if (child.isUnsubscribed()) return;
+          child.onNext(BoundedProducer.<T>unwrap(o));
+        }
+        final Throwable e;
+        synchronized (this) {
+          if (!done || !queue.isEmpty()) {
+            if (!missed) {
+              emitting = false;
+              return;
+            }
+            missed = false;
+            continue;
+          }
+          e = error;
+        }
+        // still emitting, so nothing is delivered after this.
+        if (e == null) {
+          child.onCompleted();
+        } else {
+          child.onError(e);
+        }
+        return;
+      }
+    }
+
+    // only Ts and NULL are ever queued.
+    @SuppressWarnings("unchecked")
+    private static <T> T unwrap(Object o) {
+      return o == NULL ? null : (T) o;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package li.vin.my.deviceservice;
+
+import android.os.SystemClock;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Func0;
+
+/**
+ * Folds {@link ParamUpdate}s into the latest value and timestamp per slot, held in primitive
+ * arrays, and emits copies as {@link ParamSnapshot}s on every update or at a fixed rate on the
+ * scheduler. At a fixed rate, everything downstream is emitted from the scheduler's worker.
+ */
+/*package*/ final class OperatorSnapshot
+    implements Observable.Operator<ParamSnapshot, ParamUpdate> {
+  // the time base of ParamUpdate timestamps.
+  private static final Func0<Long> ELAPSED_REALTIME_NANOS = new Func0<Long>() {
+    @Override public Long call() {
+      return SystemClock.elapsedRealtimeNanos();
+    }
+  };
+
+  private final BatchLayout layout;
+  private final SnapshotPolicy policy;
+  private final Scheduler scheduler;
+  private final Func0<Long> nanoClock;
+
+  /*package*/ OperatorSnapshot(BatchLayout layout, SnapshotPolicy policy, Scheduler scheduler) {
+    this(layout, policy, scheduler, ELAPSED_REALTIME_NANOS);
+  }
+
+  /** Judges staleness against {@code nanoClock}, which must share the updates' time base. */
+  /*package*/ OperatorSnapshot(BatchLayout layout, SnapshotPolicy policy, Scheduler scheduler,
+      Func0<Long> nanoClock) {
+    this.layout = layout;
+    this.policy = policy;
+    this.scheduler = scheduler;
+    this.nanoClock = nanoClock;
+  }
+
+  @Override public Subscriber<? super ParamUpdate> call(
+      final Subscriber<? super ParamSnapshot> child) {
+    final Slots slots = new Slots(layout, policy);
+    if (policy.intervalNanos() == 0) {
+      final Subscriber<ParamUpdate> parent = new Subscriber<ParamUpdate>() {
+        @Override public void onCompleted() {
+          child.onCompleted();
+        }
+
+        @Override public void onError(Throwable e) {
+          child.onError(e);
+        }
+
+        @Override public void onNext(ParamUpdate update) {
+          slots.fold(update);
+          final ParamSnapshot snapshot = slots.snapshot(nanoClock.call());
+          if (snapshot != null) child.onNext(snapshot);
+        }
+      };
+      child.add(parent);
+      return parent;
+    }
+
+    final Scheduler.Worker worker = scheduler.createWorker();
+    child.add(worker);
+    worker.schedulePeriodically(new Action0() {
+      @Override public void call() {
+        final ParamSnapshot snapshot = slots.snapshot(nanoClock.call());
+        if (snapshot != null && !child.isUnsubscribed()) child.onNext(snapshot);
+      }
+    }, policy.intervalNanos(), policy.intervalNanos(), TimeUnit.NANOSECONDS);
+
+    final Subscriber<ParamUpdate> parent = new Subscriber<ParamUpdate>() {
+      @Override public void onCompleted() {
+        worker.schedule(new Action0() {
+          @Override public void call() {
+            child.onCompleted();
+          }
+        });
+      }
+
+      @Override public void onError(final Throwable e) {
+        worker.schedule(new Action0() {
+          @Override public void call() {
+            child.onError(e);
+          }
+        });
+      }
+
+      @Override public void onNext(ParamUpdate update) {
+        slots.fold(update);
+      }
+    };
+    child.add(parent);
+    return parent;
+  }
+
+  private static final class Slots {
+    private final BatchLayout layout;
+    private final long maxAgeNanos;
+    private final boolean requireAll;
+
+    // guarded by this.
+    private final float[] values;
+    private final long[] timestamps;
+
+    private Slots(BatchLayout layout, SnapshotPolicy policy) {
+      this.layout = layout;
+      maxAgeNanos = policy.maxAgeNanos();
+      requireAll = policy.requiresAll();
+      values = new float[layout.size()];
+      timestamps = new long[layout.size()];
+      Arrays.fill(timestamps, ParamSnapshot.NEVER);
+    }
+
+    /*package*/ synchronized void fold(ParamUpdate update) {
+      for (int i = 0, n = update.size(); i < n; i++) {
+        final int slot = update.id(i);
+        final long timestamp = update.timestampNanos(i);
+        // entries can arrive out of order across a fallback's separate ops.
+        if (timestamp < timestamps[slot]) continue;
+        values[slot] = update.floatValue(i);
+        timestamps[slot] = timestamp;
+      }
+    }
+
+    /** A copy of the slots, or null if there's nothing (or not everything) to show yet. */
+    /*package*/ synchronized ParamSnapshot snapshot(long nowNanos) {
+      boolean any = false;
+      boolean all = true;
+      for (long timestamp : timestamps) {
+        final boolean fresh = ParamSnapshot.isFresh(timestamp, nowNanos, maxAgeNanos);
+        any |= fresh;
+        all &= fresh;
+      }
+      if (requireAll ? !all : !any) return null;
+      return new ParamSnapshot(layout, values.clone(), timestamps.clone(), nowNanos, maxAgeNanos);
+    }
+  }
+}
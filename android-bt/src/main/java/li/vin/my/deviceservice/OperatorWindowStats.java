@@ -0,0 +1,94 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.TimeUnit;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+
+/**
+ * Folds numeric values into min / max / sum / last as they arrive and emits a {@link
+ * WindowStats} per interval on the scheduler. Everything downstream - windows and the terminal
+ * event - is emitted from the scheduler's worker, so it's serialized without extra locking.
+ */
+/*package*/ final class OperatorWindowStats<T extends Number>
+    implements Observable.Operator<WindowStats, T> {
+  private final long intervalNanos;
+  private final Scheduler scheduler;
+
+  /*package*/ OperatorWindowStats(long intervalNanos, Scheduler scheduler) {
+    this.intervalNanos = intervalNanos;
+    this.scheduler = scheduler;
+  }
+
+  @Override public Subscriber<? super T> call(final Subscriber<? super WindowStats> child) {
+    final Scheduler.Worker worker = scheduler.createWorker();
+    child.add(worker);
+    final Accumulator acc = new Accumulator();
+    final Action0 flush = new Action0() {
+      @Override public void call() {
+        final WindowStats stats = acc.drain(worker.now());
+        if (stats != null && !child.isUnsubscribed()) child.onNext(stats);
+      }
+    };
+    worker.schedulePeriodically(flush, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+    // values fold in on whatever thread they arrive; the child's requests aren't chained, as
+    // the window rate has nothing to do with the value rate.
+    final Subscriber<T> parent = new Subscriber<T>() {
+      @Override public void onCompleted() {
+        worker.schedule(new Action0() {
+          @Override public void call() {
+            flush.call();
+            child.onCompleted();
+          }
+        });
+      }
+
+      @Override public void onError(final Throwable e) {
+        worker.schedule(new Action0() {
+          @Override public void call() {
+            child.onError(e);
+          }
+        });
+      }
+
+      @Override public void onNext(T t) {
+        if (t != null) acc.add(t.floatValue());
+      }
+    };
+    child.add(parent);
+    return parent;
+  }
+
+  private static final class Accumulator {
+    // guarded by this.
+    private int count;
+    private float min;
+    private float max;
+    private double sum;
+    private float last;
+
+    /*package*/ synchronized void add(float value) {
+      if (count++ == 0) {
+        min = value;
+        max = value;
+        sum = 0;
+      } else {
+        if (value < min) min = value;
+        if (value > max) max = value;
+      }
+      sum += value;
+      last = value;
+    }
+
+    /** The window so far, starting a new one - or null if nothing arrived. */
+    /*package*/ synchronized WindowStats drain(long nowMillis) {
+      if (count == 0) return null;
+      final WindowStats stats =
+          new WindowStats(count, min, max, (float) (sum / count), last, nowMillis);
+      count = 0;
+      return stats;
+    }
+  }
+}
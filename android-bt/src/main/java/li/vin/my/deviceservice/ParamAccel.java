@@ -7,15 +7,24 @@ import android.bluetooth.BluetoothGattCharacteristic;
   private static final float ACCEL_CONVERT_ONEBYTE = (9.807f / 64f);
 
   protected static float accelConvert(byte[] bytes, int idx) {
-    if (bytes.length == 14) {
-      String byteStr = new String(bytes, idx * 4, 4, ASCII);
-      return Integer.valueOf(byteStr, 16).shortValue() * ACCEL_CONVERT_TWOBYTE;
-    } else if (bytes.length == 4) {
+    return accelConvert(bytes, bytes.length, idx);
+  }
+
+  /** Axis {@code idx} of the frame in the first {@code len} bytes of {@code bytes}. */
+  /*package*/ static float accelConvert(byte[] bytes, int len, int idx) {
+    if (len == 14) {
+      return (short) Hex.parse(bytes, idx * 4, idx * 4 + 4) * ACCEL_CONVERT_TWOBYTE;
+    } else if (len == 4) {
       return bytes[idx] * ACCEL_CONVERT_ONEBYTE;
     }
     throw new RuntimeException("unknown accelerometer format.");
   }
 
+  /** The collision flag, carried as an ASCII digit in the last byte of either format. */
+  /*package*/ static boolean collision(byte[] bytes, int len) {
+    return bytes[len - 1] != '0';
+  }
+
   public ParamAccel() {
     super(Uuids.ACCEL, true, true);
   }
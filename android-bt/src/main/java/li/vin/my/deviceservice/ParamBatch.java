@@ -0,0 +1,21 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import rx.Observable;
+
+/**
+ * A fixed set of numeric {@link Param}s that share one batched device op. Values for every Param
+ * cross the binder together and are split back out per Param here.
+ *
+ * @see DeviceConnection#batch
+ */
+public interface ParamBatch {
+  /**
+   * Observe one Param of this batch. Behaves like {@link DeviceConnection#observe(Param)}; if the
+   * device service doesn't support batching, this transparently falls back to exactly that.
+   */
+  @NonNull <T> Observable<T> observe(@NonNull Param<T> param);
+
+  /** Like {@link DeviceConnection#observe(Param, Backpressure)}, for one Param of this batch. */
+  @NonNull <T> Observable<T> observe(@NonNull Param<T> param, @NonNull Backpressure backpressure);
+}
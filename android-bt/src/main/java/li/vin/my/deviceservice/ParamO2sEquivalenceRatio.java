@@ -1,7 +1,5 @@
 package li.vin.my.deviceservice;
 
-import android.util.Log;
-
 /*package*/ class ParamO2sEquivalenceRatio extends ParamStreamFloat {
   private static final float RATIO = 2 / 65535f;
 
@@ -9,11 +7,8 @@ import android.util.Log;
     super(code);
   }
 
-  @Override public Float parseVal(final String val) {
-    Log.d("O2S Equivalence", "val: " + val);
-    final int a = Integer.parseInt(val.substring(2, 4), HEX);
-    final int b = Integer.parseInt(val.substring(4, 6), HEX);
-
-    return ((a * 256) + b) * RATIO;
+  @Override float fromPayload(final int payload) {
+    // A * 256 + B, ahead of the voltage's C and D.
+    return (payload >>> 16) * RATIO;
   }
 }
@@ -1,7 +1,5 @@
 package li.vin.my.deviceservice;
 
-import android.util.Log;
-
 /*package*/ class ParamO2sVoltage extends ParamStreamFloat {
   private static final float RATIO = 8 / 65535f;
 
@@ -9,11 +7,8 @@ import android.util.Log;
     super(code);
   }
 
-  @Override public Float parseVal(final String val) {
-    Log.d("O2S Voltage", "val: " + val);
-    final int c = Integer.parseInt(val.substring(6, 8), HEX);
-    final int d = Integer.parseInt(val.substring(8, 10), HEX);
-
-    return ((c * 256) + d) * RATIO;
+  @Override float fromPayload(final int payload) {
+    // C * 256 + D, after the equivalence ratio's A and B.
+    return (payload & 0xffff) * RATIO;
   }
 }
@@ -0,0 +1,78 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * Works out which of a desired set of {@link Param}s are worth opening device ops for on the
+ * connected vehicle, so we never spend a binder call or a device polling slot on a PID the
+ * vehicle won't answer.
+ */
+/*package*/ final class ParamPlanner {
+  private static final String TAG = ParamPlanner.class.getSimpleName();
+
+  /**
+   * Whether {@code param} is an OBD-II mode 01 PID, and so gated by the vehicle's supported PID
+   * bitmap. Status, accelerometer and raw params have no code or a non-hex one and are always
+   * kept.
+   */
+  /*package*/ static boolean isPid(@NonNull Param<?> param) {
+    String code = param.getCode();
+    return code != null && code.length() == 2
+        && Hex.digit(code.charAt(0)) >= 0
+        && Hex.digit(code.charAt(1)) >= 0;
+  }
+
+  /**
+   * The params from {@code desired} the vehicle can answer, deduplicated, in order. Gated on the
+   * bitmap the vehicle reports rather than {@link SupportedPids#supports(int)}, whose
+   * known-unsupported list covers PIDs like RPM and the O2S sensors that the SDK reads fine.
+   */
+  /*package*/ static List<Param<?>> plan(@NonNull SupportedPids pids,
+      @NonNull Collection<? extends Param<?>> desired) {
+    Set<Param<?>> seen = Collections.newSetFromMap(new IdentityHashMap<Param<?>, Boolean>());
+    List<Param<?>> result = new ArrayList<>(desired.size());
+    for (Param<?> param : desired) {
+      if (!seen.add(param)) continue;
+      if (isPid(param) && !pids.reportedByVehicle(Integer.parseInt(param.getCode(), 16))) {
+        Log.i(TAG, "skipping " + Params.nameFor(param) + ", unsupported by vehicle.");
+        continue;
+      }
+      result.add(param);
+    }
+    return result;
+  }
+
+  /*package*/ static Observable<ParamValue<?>> observeSupported(
+      @NonNull final DeviceConnection conn, @NonNull final Collection<? extends Param<?>> desired) {
+    return conn.supportedPids().first().flatMap(
+        new Func1<SupportedPids, Observable<ParamValue<?>>>() {
+          @Override public Observable<ParamValue<?>> call(SupportedPids pids) {
+            List<Param<?>> planned = plan(pids, desired);
+            List<Observable<ParamValue<?>>> streams = new ArrayList<>(planned.size());
+            for (Param<?> param : planned) streams.add(tagged(conn, param));
+            return Observable.merge(streams);
+          }
+        });
+  }
+
+  private static <T> Observable<ParamValue<?>> tagged(DeviceConnection conn,
+      final Param<T> param) {
+    return conn.observe(param).map(new Func1<T, ParamValue<?>>() {
+      @Override public ParamValue<?> call(T t) {
+        return new ParamValue<>(param, t);
+      }
+    });
+  }
+
+  private ParamPlanner() {
+  }
+}
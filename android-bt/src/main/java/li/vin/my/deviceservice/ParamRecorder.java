@@ -0,0 +1,433 @@
+package li.vin.my.deviceservice;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Appends every value of a set of observed {@link Param}s to compact, append-only segment files,
+ * so a whole trip can be logged without holding it in memory.
+ * <p>
+ * Each segment starts with a header (magic, version, wall clock millis and elapsed realtime nanos
+ * at creation) followed by records of: varint param id, zigzag varint timestamp delta in nanos
+ * from the previous record (or the header), and the value as a 4 byte float. Booleans are stored
+ * as 0 / 1. Segments roll over at a size limit, and the oldest are deleted once the total exceeds
+ * a cap.
+ * <p>
+ * Writes go through a buffer and a {@link FileChannel}; call {@link #flush()} or
+ * {@link #close()} to force them out.
+ */
+public final class ParamRecorder implements Closeable {
+  private static final String TAG = ParamRecorder.class.getSimpleName();
+
+  private static final int MAGIC = 0x56505243; // VPRC
+  private static final short VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 2 + 8 + 8;
+  private static final int MAX_RECORD_SIZE = 5 + 10 + 4;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String SEGMENT_PREFIX = "seg-";
+  private static final String SEGMENT_SUFFIX = ".vpr";
+
+  private static final FilenameFilter SEGMENTS = new FilenameFilter() {
+    @Override public boolean accept(File dir, String name) {
+      return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+  };
+
+  /** One recorded value. */
+  public static final class Sample {
+    private final int paramId;
+    private final long timestampNanos;
+    private final float value;
+
+    private Sample(int paramId, long timestampNanos, float value) {
+      this.paramId = paramId;
+      this.timestampNanos = timestampNanos;
+      this.value = value;
+    }
+
+    /** The recorded Param, or null if it was recorded by a newer SDK. */
+    public @Nullable Param<?> param() {
+      return Params.paramFor(paramId);
+    }
+
+    public int paramId() {
+      return paramId;
+    }
+
+    /** In {@link SystemClock#elapsedRealtimeNanos()} time base of the recording device. */
+    public long timestampNanos() {
+      return timestampNanos;
+    }
+
+    public float value() {
+      return value;
+    }
+
+    @Override public String toString() {
+      Param<?> param = param();
+      return (param == null ? String.valueOf(paramId) : Params.nameFor(param))
+          + "@" + timestampNanos + "=" + value;
+    }
+  }
+
+  private final File dir;
+  private final long segmentBytes;
+  private final long maxTotalBytes;
+  private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  private int segmentIndex;
+  private FileChannel channel;
+  private long segmentSize;
+  private long lastTimestampNanos;
+  private boolean closed;
+
+  /**
+   * Start recording into {@code dir}. Existing segments are kept and new ones are numbered after
+   * them, so one directory can hold several sessions.
+   *
+   * @param segmentBytes roll over to a new segment file after this many bytes.
+   * @param maxTotalBytes delete the oldest segments once the directory holds more than this.
+   */
+  public static @NonNull ParamRecorder open(@NonNull File dir, long segmentBytes,
+      long maxTotalBytes) throws IOException {
+    if (segmentBytes < HEADER_SIZE + MAX_RECORD_SIZE) {
+      throw new IllegalArgumentException("segmentBytes too small");
+    }
+    if (maxTotalBytes < segmentBytes) throw new IllegalArgumentException("maxTotal < segment");
+    if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("can't create " + dir);
+    ParamRecorder recorder = new ParamRecorder(dir, segmentBytes, maxTotalBytes);
+    synchronized (recorder) {
+      recorder.openSegment();
+    }
+    return recorder;
+  }
+
+  private ParamRecorder(File dir, long segmentBytes, long maxTotalBytes) {
+    this.dir = dir;
+    this.segmentBytes = segmentBytes;
+    this.maxTotalBytes = maxTotalBytes;
+    File[] existing = segments(dir);
+    segmentIndex = existing.length == 0 ? 0 : indexOf(existing[existing.length - 1]) + 1;
+  }
+
+  /**
+   * Record every value of {@code params} observed on {@code conn} until the returned Subscription
+   * is unsubscribed. Each param is taken through the connection's shared op with {@link
+   * DeviceConnection#observe(Param, Backpressure)}, buffered so none are lost to a slow delivery
+   * scheduler, and stamped on arrival; the writes themselves happen on one {@link Schedulers#io()}
+   * worker, off the delivery thread.
+   *
+   * @throws IllegalArgumentException for params that aren't registered or aren't float, int or
+   * boolean.
+   */
+  public @NonNull Subscription record(@NonNull DeviceConnection conn,
+      @NonNull Collection<? extends Param<?>> params) {
+    return record(conn, params, Schedulers.io());
+  }
+
+  /** Like {@link #record(DeviceConnection, Collection)}, appending on {@code writer}. */
+  /*package*/ Subscription record(DeviceConnection conn, Collection<? extends Param<?>> params,
+      Scheduler writer) {
+    for (Param<?> param : params) {
+      if (Params.idFor(param) < 0) throw new IllegalArgumentException("unregistered param");
+      ValueType type = ValueType.of(param);
+      if (!type.isNumeric() && type != ValueType.BOOL) {
+        throw new IllegalArgumentException(Params.nameFor(param) + " can't be recorded");
+      }
+    }
+
+    final List<Observable<Sample>> samples = new ArrayList<>(params.size());
+    for (Param<?> param : params) samples.add(samplesOf(conn, param));
+    // one observeOn after the merge, so every append for this recording is on the same worker.
+    return Observable.merge(samples)
+        .observeOn(writer)
+        .subscribe(new Action1<Sample>() {
+          @Override public void call(Sample sample) {
+            append(sample.paramId, sample.timestampNanos, sample.value);
+          }
+        }, new Action1<Throwable>() {
+          @Override public void call(Throwable e) {
+            Log.e(TAG, "recording failed", e);
+          }
+        });
+  }
+
+  private static <T> Observable<Sample> samplesOf(DeviceConnection conn, Param<T> param) {
+    final int id = Params.idFor(param);
+    return conn.observe(param, Backpressure.buffer())
+        .map(new Func1<T, Sample>() {
+          @Override public Sample call(T val) {
+            return new Sample(id, SystemClock.elapsedRealtimeNanos(), val instanceof Boolean
+                ? ((Boolean) val ? 1f : 0f)
+                : ((Number) val).floatValue());
+          }
+        })
+        .onErrorResumeNext(new Func1<Throwable, Observable<Sample>>() {
+          @Override public Observable<Sample> call(Throwable e) {
+            // a failed param ends its own recording, not the others'.
+            Log.e(TAG, "recording of " + id + " failed", e);
+            return Observable.empty();
+          }
+        });
+  }
+
+  /** Append one sample. Safe to call from any thread; I/O errors are logged and drop the sample. */
+  public synchronized void append(int paramId, long timestampNanos, float value) {
+    if (closed) return;
+    try {
+      if (buf.remaining() < MAX_RECORD_SIZE) flushBuffer();
+      final int start = buf.position();
+      putVarint(buf, paramId);
+      putVarint(buf, zigzag(timestampNanos - lastTimestampNanos));
+      buf.putFloat(value);
+      lastTimestampNanos = timestampNanos;
+      segmentSize += buf.position() - start;
+      if (segmentSize >= segmentBytes) {
+        flushBuffer();
+        channel.close();
+        segmentIndex++;
+        openSegment();
+      }
+    } catch (IOException e) {
+      Log.e(TAG, "failed to append sample", e);
+    }
+  }
+
+  public synchronized void flush() throws IOException {
+    if (closed) return;
+    flushBuffer();
+    channel.force(false);
+  }
+
+  @Override public synchronized void close() throws IOException {
+    if (closed) return;
+    try {
+      flushBuffer();
+      channel.close();
+    } finally {
+      closed = true;
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) channel.write(buf);
+    buf.clear();
+  }
+
+  private void openSegment() throws IOException {
+    File file = new File(dir, String.format(Locale.US, "%s%08d%s", SEGMENT_PREFIX, segmentIndex,
+        SEGMENT_SUFFIX));
+    channel = new FileOutputStream(file, false).getChannel();
+    lastTimestampNanos = SystemClock.elapsedRealtimeNanos();
+    buf.putInt(MAGIC);
+    buf.putShort(VERSION);
+    buf.putLong(System.currentTimeMillis());
+    buf.putLong(lastTimestampNanos);
+    segmentSize = HEADER_SIZE;
+    enforceCap(file);
+  }
+
+  private void enforceCap(File current) {
+    File[] segments = segments(dir);
+    long total = 0;
+    for (File f : segments) total += f.length();
+    // the current segment is still mostly in the buffer, so count it at full size.
+    total += segmentBytes;
+    for (File f : segments) {
+      if (total <= maxTotalBytes) break;
+      if (f.equals(current)) continue;
+      long len = f.length();
+      if (f.delete()) {
+        total -= len;
+        Log.d(TAG, "size cap reached, deleted " + f.getName());
+      }
+    }
+  }
+
+  private static File[] segments(File dir) {
+    File[] files = dir.listFiles(SEGMENTS);
+    if (files == null) return new File[0];
+    Arrays.sort(files);
+    return files;
+  }
+
+  private static int indexOf(File segment) {
+    String name = segment.getName();
+    try {
+      return Integer.parseInt(
+          name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static long zigzag(long v) {
+    return (v << 1) ^ (v >> 63);
+  }
+
+  private static long unzigzag(long v) {
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  private static void putVarint(ByteBuffer buf, long v) {
+    while ((v & ~0x7fL) != 0) {
+      buf.put((byte) ((v & 0x7f) | 0x80));
+      v >>>= 7;
+    }
+    buf.put((byte) v);
+  }
+
+  /**
+   * Stream back every sample recorded in {@code dir}, oldest segment first. Segments are read in
+   * buffer-sized chunks as the subscriber requests samples, so the recording is never loaded
+   * into memory whole. A segment truncated by a crash ends at its last complete record.
+   */
+  public static @NonNull Observable<Sample> read(@NonNull final File dir) {
+    return Observable.using(new Func0<SampleIterator>() {
+      @Override public SampleIterator call() {
+        return new SampleIterator(segments(dir));
+      }
+    }, new Func1<SampleIterator, Observable<Sample>>() {
+      @Override public Observable<Sample> call(final SampleIterator iterator) {
+        return Observable.from(new Iterable<Sample>() {
+          @Override public Iterator<Sample> iterator() {
+            return iterator;
+          }
+        });
+      }
+    }, new Action1<SampleIterator>() {
+      @Override public void call(SampleIterator iterator) {
+        iterator.dispose();
+      }
+    });
+  }
+
+  private static final class SampleIterator implements Iterator<Sample> {
+    private final List<File> segments;
+    private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    private FileChannel channel;
+    private boolean eof;
+    private long lastTimestampNanos;
+    private Sample next;
+
+    private SampleIterator(File[] segments) {
+      this.segments = new ArrayList<>(Arrays.asList(segments));
+      buf.limit(0);
+    }
+
+    @Override public boolean hasNext() {
+      if (next != null) return true;
+      try {
+        next = readNext();
+      } catch (IOException e) {
+        closeQuietly();
+        throw new RuntimeException("failed to read recording", e);
+      }
+      return next != null;
+    }
+
+    @Override public Sample next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      Sample result = next;
+      next = null;
+      return result;
+    }
+
+    @Override public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private Sample readNext() throws IOException {
+      while (true) {
+        if (channel == null) {
+          if (segments.isEmpty()) return null;
+          channel = new FileInputStream(segments.remove(0)).getChannel();
+          eof = false;
+          buf.clear().limit(0);
+          if (!fill(HEADER_SIZE) || buf.getInt() != MAGIC || buf.getShort() != VERSION) {
+            Log.w(TAG, "skipping unreadable segment");
+            closeQuietly();
+            continue;
+          }
+          buf.getLong(); // wall clock
+          lastTimestampNanos = buf.getLong();
+        }
+
+        if (fill(MAX_RECORD_SIZE) || buf.hasRemaining()) {
+          final int mark = buf.position();
+          try {
+            final int paramId = (int) getVarint(buf);
+            final long ts = lastTimestampNanos + unzigzag(getVarint(buf));
+            final float value = buf.getFloat();
+            lastTimestampNanos = ts;
+            return new Sample(paramId, ts, value);
+          } catch (BufferUnderflowException e) {
+            // partial trailing record - only possible at the real end of the file.
+            buf.position(mark);
+          }
+        }
+        closeQuietly();
+      }
+    }
+
+    /** Make sure at least {@code n} bytes are buffered; false if the segment ends first. */
+    private boolean fill(int n) throws IOException {
+      if (buf.remaining() >= n) return true;
+      buf.compact();
+      while (!eof && buf.position() < n) {
+        if (channel.read(buf) < 0) eof = true;
+      }
+      buf.flip();
+      return buf.remaining() >= n;
+    }
+
+    private static long getVarint(ByteBuffer buf) {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final byte b = buf.get();
+        result |= (long) (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) return result;
+      }
+      throw new IllegalStateException("malformed varint");
+    }
+
+    private void closeQuietly() {
+      try {
+        if (channel != null) channel.close();
+      } catch (IOException ignored) {
+      }
+      channel = null;
+    }
+
+    private void dispose() {
+      segments.clear();
+      closeQuietly();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * The latest value of each param observed through {@link DeviceConnection#observeSnapshots}, as
+ * of one instant, so values computed from several params line up in time. Slots are indexed in
+ * the order the params were first given; a slot with no value, or only one older than the
+ * policy's max age, is missing.
+ */
+public final class ParamSnapshot {
+  /*package*/ static final long NEVER = Long.MIN_VALUE;
+
+  private final BatchLayout layout;
+  private final float[] values;
+  private final long[] timestamps;
+  private final long snapshotNanos;
+  private final long maxAgeNanos;
+
+  /*package*/ ParamSnapshot(@NonNull BatchLayout layout, @NonNull float[] values,
+      @NonNull long[] timestamps, long snapshotNanos, long maxAgeNanos) {
+    this.layout = layout;
+    this.values = values;
+    this.timestamps = timestamps;
+    this.snapshotNanos = snapshotNanos;
+    this.maxAgeNanos = maxAgeNanos;
+  }
+
+  /** Whether a value read at {@code timestamp} is present, and still fresh at {@code nowNanos}. */
+  /*package*/ static boolean isFresh(long timestamp, long nowNanos, long maxAgeNanos) {
+    return timestamp != NEVER && (maxAgeNanos == 0 || nowNanos - timestamp <= maxAgeNanos);
+  }
+
+  /** Number of slots - one per distinct param. */
+  public int size() {
+    return values.length;
+  }
+
+  public @NonNull Param<?> param(int i) {
+    return layout.params.get(i);
+  }
+
+  /** {@code param}'s slot, or -1 if it isn't in this snapshot. */
+  public int indexOf(@NonNull Param<?> param) {
+    return layout.idOf(param);
+  }
+
+  /** Whether slot {@code i} holds a value that isn't stale. */
+  public boolean has(int i) {
+    return isFresh(timestamps[i], snapshotNanos, maxAgeNanos);
+  }
+
+  /** Slot {@code i}'s value, or NaN if it's missing. */
+  public float floatValue(int i) {
+    return has(i) ? values[i] : Float.NaN;
+  }
+
+  /** When slot {@code i}'s value was read, in elapsed realtime nanos; meaningless if missing. */
+  public long timestampNanos(int i) {
+    return timestamps[i];
+  }
+
+  /** {@code param}'s value boxed as its type, or null if it's missing or not in the snapshot. */
+  @SuppressWarnings("unchecked")
+  public @Nullable <T> T get(@NonNull Param<T> param) {
+    final int i = layout.idOf(param);
+    return i < 0 || !has(i) ? null : (T) layout.types[i].box(values[i]);
+  }
+
+  /** {@code param}'s value, or NaN if it's missing or not in the snapshot. */
+  public float floatValue(@NonNull Param<?> param) {
+    final int i = layout.idOf(param);
+    return i < 0 ? Float.NaN : floatValue(i);
+  }
+
+  /** When this snapshot was taken, in elapsed realtime nanos. */
+  public long snapshotNanos() {
+    return snapshotNanos;
+  }
+
+  @Override public String toString() {
+    final StringBuilder sb = new StringBuilder("ParamSnapshot{");
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) sb.append(", ");
+      sb.append(layout.names[i]).append('=');
+      if (has(i)) {
+        sb.append(layout.types[i].box(values[i]));
+      } else {
+        sb.append('-');
+      }
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -23,35 +23,23 @@ import java.util.UUID;
     mCode = code;
   }
 
-  @Override public String parseCharacteristic(BluetoothGattCharacteristic characteristic) {
-    final byte[] val = characteristic.getValue();
-    if (val == null) {
-      throw new RuntimeException("val == null");
-    }
-    if (val.length == 0) {
-      throw new RuntimeException("val empty.");
-    }
+  /**
+   * Set to log every raw frame as it's parsed. Off by default - building the
+   * hex dump costs several allocations per notification.
+   */
+  /*package*/ static volatile boolean logFrames = false;
 
-    Log.d("parseCharacteristic ("+characteristic.getUuid()+")", bytesToHex(val) + " : " + new String(val, 0, val.length, ASCII));//new String(val, 0, val.length, ASCII));
+  @Override public String parseCharacteristic(BluetoothGattCharacteristic characteristic) {
+    final byte[] val = characteristicValue(characteristic);
 
-    // trim empties from start
-    int stt = 0;
-    while (stt < val.length && (Character.isWhitespace(val[stt]) || val[stt] == 0)) {
-      stt++;
+    if (logFrames) {
+      Log.d("parseCharacteristic (" + characteristic.getUuid() + ")",
+          bytesToHex(val) + " : " + new String(val, 0, val.length, ASCII));
     }
 
-    // trim empties from end
-    int end = val.length-1;
-    while (end >= 0 && (Character.isWhitespace(val[end]) || val[end] == 0)) {
-      end--;
-    }
-    end++;
-
-    // validate there's still a nonempty value
-    int len = end - stt;
-    if (len < 2) {
-      throw new RuntimeException("trimmed len < 2.");
-    }
+    final int stt = trimStart(val);
+    final int end = trimEnd(val, stt);
+    final int len = end - stt;
 
     if (val[stt] == '4' && val[stt+1] == '1') {
       if (end > stt+2) {
@@ -125,6 +113,79 @@ import java.util.UUID;
     //return new String(val, valStart, valLen, ASCII);
   }
 
+  /*package*/ static byte[] characteristicValue(BluetoothGattCharacteristic characteristic) {
+    final byte[] val = characteristic.getValue();
+    if (val == null) {
+      throw new RuntimeException("val == null");
+    }
+    if (val.length == 0) {
+      throw new RuntimeException("val empty.");
+    }
+    return val;
+  }
+
+  private static boolean isEmpty(byte b) {
+    return Character.isWhitespace(b) || b == 0;
+  }
+
+  /** Index of the first non-empty byte. */
+  private static int trimStart(byte[] val) {
+    int stt = 0;
+    while (stt < val.length && isEmpty(val[stt])) {
+      stt++;
+    }
+    return stt;
+  }
+
+  /** Index one past the last non-empty byte, validating there's still a nonempty value. */
+  private static int trimEnd(byte[] val, int stt) {
+    int end = val.length - 1;
+    while (end >= 0 && isEmpty(val[end])) {
+      end--;
+    }
+    end++;
+    if (end - stt < 2) {
+      throw new RuntimeException("trimmed len < 2.");
+    }
+    return end;
+  }
+
+  /**
+   * Index of the first payload byte of a raw frame - the same position the String returned by
+   * {@link #parseCharacteristic} starts at, so offsets line up with {@link #parseVal}.
+   */
+  /*package*/ static int frameStart(byte[] val) {
+    final int stt = trimStart(val);
+    return val.length - stt >= 2 && val[stt] == '4' && val[stt + 1] == '1' ? stt + 2 : stt;
+  }
+
+  /** Index one past the last payload byte of a raw frame. */
+  /*package*/ static int frameEnd(byte[] val) {
+    return trimEnd(val, trimStart(val));
+  }
+
+  /**
+   * The data bytes after the two-char code at {@code off}, as one big-endian int. No PID returns
+   * more than four, and every stream param's value is a function of them, so params sharing a
+   * code can share a single parse.
+   */
+  /*package*/ static int payload(byte[] val, int off, int end) {
+    if (end - off > 10) {
+      throw new NumberFormatException("payload over 4 bytes in [" + off + ", " + end + ")");
+    }
+    return Hex.parse(val, off + 2, end);
+  }
+
+  /** Byte-level equivalent of {@link #matches(String)} over {@code [off, end)}. */
+  /*package*/ final boolean matches(byte[] val, int off, int end) {
+    final int codeLen = mCode.length();
+    if (end - off < codeLen) return false;
+    for (int i = 0; i < codeLen; i++) {
+      if (val[off + i] != mCode.charAt(i)) return false;
+    }
+    return true;
+  }
+
   @Override public Boolean matches(final String val) {
     //    Log.i("StreamPid", "matching " + mCode + " against " + val);
     return val.startsWith(mCode) ? Boolean.TRUE : Boolean.FALSE;
@@ -1,5 +1,6 @@
 package li.vin.my.deviceservice;
 
+import android.bluetooth.BluetoothGattCharacteristic;
 import android.support.annotation.NonNull;
 import java.util.UUID;
 
@@ -13,6 +14,32 @@ import java.util.UUID;
     super(code, uuid, shouldRead);
   }
 
+  /** This param's value from its code's {@link #payload}. */
+  /*package*/ abstract int fromPayload(int payload);
+
+  /**
+   * Decode the payload in {@code [off, end)} of a raw frame, where {@code off} lines up with
+   * index 0 of the String handed to {@link #parseVal}.
+   */
+  /*package*/ final int decodeInt(byte[] val, int off, int end) {
+    return fromPayload(payload(val, off, end));
+  }
+
+  /** Decode straight from the characteristic bytes, skipping the intermediate Strings. */
+  /*package*/ final int parseInt(BluetoothGattCharacteristic characteristic) {
+    final byte[] val = characteristicValue(characteristic);
+    return decodeInt(val, frameStart(val), frameEnd(val));
+  }
+
+  /**
+   * The String path, for {@link ParamImpl} callers only. It copies {@code val} into bytes first;
+   * the SDK's own callers decode frames with {@link #decodeInt} instead.
+   */
+  @Override final Integer parseVal(final String val) {
+    final byte[] bytes = val.getBytes(ASCII);
+    return decodeInt(bytes, 0, bytes.length);
+  }
+
   @Override DeviceServiceFunc<Integer> getServiceFunc(@NonNull String chipId, @NonNull String name) {
     return new DeviceServiceFuncInt(chipId, name);
   }
@@ -0,0 +1,98 @@
+package li.vin.my.deviceservice;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * One update from {@link DeviceConnection#observeAll}: the values that arrived together for
+ * some of the observed params, as primitives. Nothing is boxed unless {@link #value(int)} is
+ * called. A param may appear more than once, oldest first.
+ */
+public final class ParamUpdate {
+  private final BatchLayout layout;
+  private final ValueBatch batch;
+
+  /*package*/ ParamUpdate(@NonNull BatchLayout layout, @NonNull ValueBatch batch) {
+    this.layout = layout;
+    this.batch = batch;
+  }
+
+  /**
+   * Single value updates from separate ops per param, for when the values can't be had as one
+   * batched op.
+   */
+  /*package*/ static Observable<ParamUpdate> fromEach(@NonNull final BatchLayout layout,
+      @NonNull Func1<Param<?>, Observable<?>> observe) {
+    final List<Observable<ParamUpdate>> each = new ArrayList<>(layout.size());
+    for (int i = 0; i < layout.size(); i++) {
+      final int id = i;
+      each.add(observe.call(layout.params.get(id)).map(new Func1<Object, ParamUpdate>() {
+        @Override public ParamUpdate call(Object val) {
+          return new ParamUpdate(layout, new ValueBatch(new int[] {id},
+              new float[] {((Number) val).floatValue()},
+              new long[] {SystemClock.elapsedRealtimeNanos()}));
+        }
+      }));
+    }
+    return Observable.merge(each);
+  }
+
+  /** Values in this update. */
+  public int size() {
+    return batch.size();
+  }
+
+  /** The batch id of the param value {@code i} is for. */
+  /*package*/ int id(int i) {
+    return batch.ids[i];
+  }
+
+  /** The param value {@code i} is for. */
+  public @NonNull Param<?> param(int i) {
+    return layout.params.get(batch.ids[i]);
+  }
+
+  public float floatValue(int i) {
+    return batch.values[i];
+  }
+
+  /** Value {@code i} rounded to an int, for int params. */
+  public int intValue(int i) {
+    return Math.round(batch.values[i]);
+  }
+
+  /** Value {@code i} boxed as its param's type, as {@link DeviceConnection#observe} would. */
+  public @NonNull Object value(int i) {
+    return layout.types[batch.ids[i]].box(batch.values[i]);
+  }
+
+  /** When value {@code i} was read, in elapsed realtime nanos. */
+  public long timestampNanos(int i) {
+    return batch.timestamps[i];
+  }
+
+  /** The most recent value for {@code param} in this update, or null if there is none. */
+  @SuppressWarnings("unchecked")
+  public @Nullable <T> T latest(@NonNull Param<T> param) {
+    final int id = layout.idOf(param);
+    if (id < 0) return null;
+    for (int i = batch.size() - 1; i >= 0; i--) {
+      if (batch.ids[i] == id) return (T) layout.types[id].box(batch.values[i]);
+    }
+    return null;
+  }
+
+  @Override public String toString() {
+    final StringBuilder sb = new StringBuilder("ParamUpdate{");
+    for (int i = 0, n = size(); i < n; i++) {
+      if (i > 0) sb.append(", ");
+      sb.append(layout.names[batch.ids[i]]).append('=').append(value(i));
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,34 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A value tagged with the {@link Param} it was observed for, as emitted by merged streams.
+ */
+public final class ParamValue<T> {
+  private final Param<T> param;
+  private final T value;
+
+  /*package*/ ParamValue(@NonNull Param<T> param, T value) {
+    this.param = param;
+    this.value = value;
+  }
+
+  public @NonNull Param<T> param() {
+    return param;
+  }
+
+  public T value() {
+    return value;
+  }
+
+  /** This value cast to {@code param}'s type, or null if it was observed for another Param. */
+  @SuppressWarnings("unchecked")
+  public <V> V valueFor(@NonNull Param<V> param) {
+    return this.param == param ? (V) value : null;
+  }
+
+  @Override public String toString() {
+    return Params.nameFor(param) + "=" + value;
+  }
+}
@@ -2,11 +2,13 @@ package li.vin.my.deviceservice;
 
 import android.bluetooth.BluetoothGattCharacteristic;
 import android.support.annotation.NonNull;
-import android.util.Log;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 public final class Params {
@@ -50,9 +52,7 @@ public final class Params {
    */
   public static final Param<Float> CALCULATED_LOAD_VALUE = new ParamStreamFloat("04") {
     @Override
-    public Float parseVal(final String val) {
-      final int a = Integer.parseInt(val.substring(2), HEX);
-
+    float fromPayload(final int a) {
       return (a * 100) / 255f;
     }
   };
@@ -62,7 +62,7 @@ public final class Params {
   public static final Param<Boolean> COLLISION = new ParamAccelBool() {
     @Override
     public Boolean parseVal(byte[] val) {
-      return !(new String(val, val.length - 1, 1, ASCII).equals("0"))
+      return collision(val, val.length)
           ? Boolean.TRUE
           : Boolean.FALSE;
     }
@@ -74,11 +74,9 @@ public final class Params {
    */
   public static final Param<Float> CONTROL_MODULE_VOLTAGE = new ParamStreamFloat("42") {
     @Override
-    public Float parseVal(final String val) {
-      final int a = Integer.parseInt(val.substring(2, 4), HEX);
-      final int b = Integer.parseInt(val.substring(4, 6), HEX);
-
-      return ((a * 256) + b) / 1000f;
+    float fromPayload(final int a) {
+      // A * 256 + B.
+      return a / 1000f;
     }
   };
 
@@ -88,9 +86,7 @@ public final class Params {
    */
   public static final Param<Float> COOLANT_TEMP_C = new ParamStreamFloat("05") {
     @Override
-    public Float parseVal(final String val) {
-      final int a = Integer.parseInt(val.substring(2), HEX);
-
+    float fromPayload(final int a) {
       return a - 40f;
     }
   };
@@ -101,9 +97,7 @@ public final class Params {
    */
   public static final Param<Float> COOLANT_TEMP_F = new ParamStreamFloat("05") {
     @Override
-    public Float parseVal(final String val) {
-      final int a = Integer.parseInt(val.substring(2), HEX);
-
+    float fromPayload(final int a) {
       return ((a - 40) * 1.8f) + 32;
     }
   };
@@ -132,9 +126,7 @@ public final class Params {
    */
   public static final Param<Float> FUEL_LEVEL_INPUT = new ParamStreamFloat("2F") {
     @Override
-    public Float parseVal(final String val) {
-      final int a = Integer.valueOf(val.substring(2), HEX);
-
+    float fromPayload(final int a) {
       return (a * 100) / 255f;
     }
   };
@@ -145,11 +137,9 @@ public final class Params {
    */
   public static final Param<Float> MASS_AIRFLOW = new ParamStreamFloat("10") {
     @Override
-    public Float parseVal(final String val) {
-      final int a = Integer.parseInt(val.substring(2, 4), HEX);
-      final int b = Integer.parseInt(val.substring(4, 6), HEX);
-
-      return ((a * 256) + b) / 100f;
+    float fromPayload(final int a) {
+      // A * 256 + B.
+      return a / 100f;
     }
   };
 
@@ -259,11 +249,9 @@ public final class Params {
    */
   public static final Param<Float> RPM = new ParamStreamFloat("0C", Uuids.RPM, false) {
     @Override
-    public Float parseVal(final String val) {
-      final int a = Integer.parseInt(val.substring(2, 4), HEX);
-      final int b = Integer.parseInt(val.substring(4, 6), HEX);
-
-      return ((a * 256) + b) / 4f;
+    float fromPayload(final int a) {
+      // A * 256 + B.
+      return a / 4f;
     }
   };
 
@@ -273,11 +261,9 @@ public final class Params {
    */
   public static final Param<Integer> RUNTIME_SINCE_ENGINE_START = new ParamStreamInt("1F") {
     @Override
-    public Integer parseVal(final String val) {
-      final int a = Integer.parseInt(val.substring(0, 2), HEX);
-      final int b = Integer.parseInt(val.substring(2, 4), HEX);
-
-      return (a * 256) + b;
+    int fromPayload(final int a) {
+      // A * 256 + B.
+      return a;
     }
   };
 
@@ -287,8 +273,8 @@ public final class Params {
    */
   public static final Param<Integer> SPEED_KPH = new ParamStreamInt("0D") {
     @Override
-    public Integer parseVal(final String val) {
-      return Integer.valueOf(val.substring(2), HEX); // remove 0D from beginning
+    int fromPayload(final int a) {
+      return a;
     }
   };
 
@@ -300,9 +286,8 @@ public final class Params {
     private static final float KPH_TO_MPH = 0.621371f;
 
     @Override
-    public Integer parseVal(final String val) {
-      return Math.round(
-          Integer.parseInt(val.substring(2), HEX) * KPH_TO_MPH); // remove 0D from beginning
+    int fromPayload(final int a) {
+      return Math.round(a * KPH_TO_MPH);
     }
   };
 
@@ -399,15 +384,10 @@ public final class Params {
     }
   };
 
-  public static final ParamStream<Float> BATTERY_VOLTAGE = new ParamStream<Float>("B:") {
+  public static final ParamStream<Float> BATTERY_VOLTAGE = new ParamStreamFloat("B:") {
     @Override
-    Float parseVal(String val) {
-      return Integer.valueOf(val.substring(2), HEX) * 0.006f;
-    }
-
-    @Override
-    DeviceServiceFunc<Float> getServiceFunc(@NonNull String chipId, @NonNull String name) {
-      return new DeviceServiceFuncFloat(chipId, name);
+    float fromPayload(final int a) {
+      return a * 0.006f;
     }
   };
 
@@ -461,17 +441,83 @@ public final class Params {
     return param;
   }
 
+  // Explicit rather than reflective, so lookups are O(1), nothing is scanned on cold start and
+  // names survive ProGuard renaming the fields. Registration order defines ids - only append.
+  private static final Map<String, Param<?>> PARAMS_BY_NAME = new HashMap<>();
+  private static final Map<Param<?>, String> NAMES_BY_PARAM = new IdentityHashMap<>();
+  private static final Map<Param<?>, Integer> IDS_BY_PARAM = new IdentityHashMap<>();
+  private static final Map<Param<?>, ValueType> TYPES_BY_PARAM = new IdentityHashMap<>();
+  private static final List<Param<?>> PARAMS_BY_ID = new ArrayList<>();
+
+  static {
+    register("ACCEL_RAW", ACCEL_RAW);
+    register("ACCEL_X", ACCEL_X);
+    register("ACCEL_Y", ACCEL_Y);
+    register("ACCEL_Z", ACCEL_Z);
+    register("CALCULATED_LOAD_VALUE", CALCULATED_LOAD_VALUE);
+    register("CHIP_ID", CHIP_ID);
+    register("COLLISION", COLLISION);
+    register("CONTROL_MODULE_VOLTAGE", CONTROL_MODULE_VOLTAGE);
+    register("COOLANT_TEMP_C", COOLANT_TEMP_C);
+    register("COOLANT_TEMP_F", COOLANT_TEMP_F);
+    register("DTCS", DTCS);
+    register("FUEL_LEVEL_INPUT", FUEL_LEVEL_INPUT);
+    register("MASS_AIRFLOW", MASS_AIRFLOW);
+    register("MASS_AIRFLOW_DOS", MASS_AIRFLOW_DOS);
+    register("O2S_1A_EQUIVALENCE_RATIO", O2S_1A_EQUIVALENCE_RATIO);
+    register("O2S_1A_VOLTAGE", O2S_1A_VOLTAGE);
+    register("O2S_1B_EQUIVALENCE_RATIO", O2S_1B_EQUIVALENCE_RATIO);
+    register("O2S_1B_VOLTAGE", O2S_1B_VOLTAGE);
+    register("O2S_1C_EQUIVALENCE_RATIO", O2S_1C_EQUIVALENCE_RATIO);
+    register("O2S_1C_VOLTAGE", O2S_1C_VOLTAGE);
+    register("O2S_1D_EQUIVALENCE_RATIO", O2S_1D_EQUIVALENCE_RATIO);
+    register("O2S_1D_VOLTAGE", O2S_1D_VOLTAGE);
+    register("O2S_2A_EQUIVALENCE_RATIO", O2S_2A_EQUIVALENCE_RATIO);
+    register("O2S_2A_VOLTAGE", O2S_2A_VOLTAGE);
+    register("O2S_2B_EQUIVALENCE_RATIO", O2S_2B_EQUIVALENCE_RATIO);
+    register("O2S_2B_VOLTAGE", O2S_2B_VOLTAGE);
+    register("O2S_2C_EQUIVALENCE_RATIO", O2S_2C_EQUIVALENCE_RATIO);
+    register("O2S_2C_VOLTAGE", O2S_2C_VOLTAGE);
+    register("O2S_2D_EQUIVALENCE_RATIO", O2S_2D_EQUIVALENCE_RATIO);
+    register("O2S_2D_VOLTAGE", O2S_2D_VOLTAGE);
+    register("RPM", RPM);
+    register("RUNTIME_SINCE_ENGINE_START", RUNTIME_SINCE_ENGINE_START);
+    register("SPEED_KPH", SPEED_KPH);
+    register("SPEED_MPH", SPEED_MPH);
+    register("VIN", VIN);
+    register("PIDS", PIDS);
+    register("POWER_STATUS", POWER_STATUS);
+    register("CONNECTION_STATUS", CONNECTION_STATUS);
+    register("GPS_STATUS", GPS_STATUS);
+    register("CONNECTION_TYPE", CONNECTION_TYPE);
+    register("CONNECTION_STRENGTH", CONNECTION_STRENGTH);
+    register("BLE_VERSION", BLE_VERSION);
+    register("BATTERY_VOLTAGE", BATTERY_VOLTAGE);
+    register("RAW_STREAM", RAW_STREAM);
+    register("RAW_RPM", RAW_RPM);
+  }
+
+  private static void register(String name, Param<?> param) {
+    if (PARAMS_BY_NAME.put(name, param) != null) {
+      throw new IllegalStateException("duplicate Param name " + name);
+    }
+    NAMES_BY_PARAM.put(param, name);
+    IDS_BY_PARAM.put(param, PARAMS_BY_ID.size());
+    TYPES_BY_PARAM.put(param, ValueType.classify(param));
+    PARAMS_BY_ID.add(param);
+  }
+
   /*package*/
   @SuppressWarnings("unchecked")
   static <T> ParamImpl<T, ?> paramFor(@NonNull String name) throws RuntimeException {
-    try {
-      if (name.startsWith("PIDParam")) {
-        return (ParamImpl<T, ?>) getPidParam(name.substring("PIDParam".length()));
-      }
-      return (ParamImpl<T, ?>) Params.class.getField(name).get(null);
-    } catch (IllegalAccessException | NoSuchFieldException e) {
-      throw new RuntimeException("failed to find Param " + name, e);
+    if (name.startsWith("PIDParam")) {
+      return (ParamImpl<T, ?>) getPidParam(name.substring("PIDParam".length()));
     }
+    Param<?> param = PARAMS_BY_NAME.get(name);
+    if (param == null) {
+      throw new RuntimeException("failed to find Param " + name);
+    }
+    return (ParamImpl<T, ?>) param;
   }
 
   /*package*/
@@ -479,17 +525,30 @@ public final class Params {
     if (p instanceof PIDParam) {
       return "PIDParam" + p.getCode();
     }
-    try {
-      for (Field f : Params.class.getFields()) {
-        if (f.get(null) == p) {
-          return f.getName();
-        }
-      }
-    } catch (IllegalAccessException e) {
-      Log.e("Params", "failed to get name for param", e);
-    }
+    return NAMES_BY_PARAM.get(p);
+  }
+
+  /** Stable small int id of a registered Param, or -1 (including for PID params). */
+  /*package*/
+  static int idFor(@NonNull Param<?> p) {
+    Integer id = IDS_BY_PARAM.get(p);
+    return id == null ? -1 : id;
+  }
+
+  /** The {@link ValueType} of a registered Param, or null (including for PID params). */
+  /*package*/
+  static ValueType typeFor(@NonNull Param<?> p) {
+    return TYPES_BY_PARAM.get(p);
+  }
 
-    return null;
+  /*package*/
+  static Param<?> paramFor(int id) {
+    return id >= 0 && id < PARAMS_BY_ID.size() ? PARAMS_BY_ID.get(id) : null;
+  }
+
+  /*package*/
+  static int registeredCount() {
+    return PARAMS_BY_ID.size();
   }
 
   private Params() {
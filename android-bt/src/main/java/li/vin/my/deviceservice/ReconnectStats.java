@@ -0,0 +1,74 @@
+package li.vin.my.deviceservice;
+
+/**
+ * Snapshot of how a {@link DeviceConnection} has coped with the device service going away, for
+ * tuning its {@link RetryPolicy}. Latencies run from the service disconnecting to it being
+ * connected again.
+ */
+public final class ReconnectStats {
+  /*package*/ static final ReconnectStats EMPTY = new ReconnectStats(0, 0, 0, 0, 0, 0, false);
+
+  private final int disconnects;
+  private final int reconnects;
+  private final int gaveUp;
+  private final long lastLatencyNanos;
+  private final long totalLatencyNanos;
+  private final long maxLatencyNanos;
+  private final boolean circuitOpen;
+
+  /*package*/ ReconnectStats(int disconnects, int reconnects, int gaveUp, long lastLatencyNanos,
+      long totalLatencyNanos, long maxLatencyNanos, boolean circuitOpen) {
+    this.disconnects = disconnects;
+    this.reconnects = reconnects;
+    this.gaveUp = gaveUp;
+    this.lastLatencyNanos = lastLatencyNanos;
+    this.totalLatencyNanos = totalLatencyNanos;
+    this.maxLatencyNanos = maxLatencyNanos;
+    this.circuitOpen = circuitOpen;
+  }
+
+  /** Times the service disconnected unexpectedly. */
+  public int disconnects() {
+    return disconnects;
+  }
+
+  /** Times the service came back after a disconnect. */
+  public int reconnects() {
+    return reconnects;
+  }
+
+  /** Ops that stopped retrying, through max attempts or the circuit breaker. */
+  public int gaveUp() {
+    return gaveUp;
+  }
+
+  public long lastLatencyNanos() {
+    return lastLatencyNanos;
+  }
+
+  public long meanLatencyNanos() {
+    return reconnects == 0
+        ? 0
+        : totalLatencyNanos / reconnects;
+  }
+
+  public long maxLatencyNanos() {
+    return maxLatencyNanos;
+  }
+
+  /** Whether the circuit breaker is currently refusing retries. */
+  public boolean circuitOpen() {
+    return circuitOpen;
+  }
+
+  @Override public String toString() {
+    return "ReconnectStats{disconnects=" + disconnects
+        + ", reconnects=" + reconnects
+        + ", gaveUp=" + gaveUp
+        + ", lastLatencyMs=" + lastLatencyNanos / 1000000
+        + ", meanLatencyMs=" + meanLatencyNanos() / 1000000
+        + ", maxLatencyMs=" + maxLatencyNanos / 1000000
+        + ", circuitOpen=" + circuitOpen
+        + '}';
+  }
+}
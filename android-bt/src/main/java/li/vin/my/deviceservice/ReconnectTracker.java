@@ -0,0 +1,57 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts service disconnects and reconnect latencies for {@link ReconnectStats}, and runs the
+ * {@link RetryPolicy} circuit breaker over recent disconnects. Times are elapsed realtime nanos.
+ */
+/*package*/ final class ReconnectTracker {
+  // guarded by this.
+  private final ArrayDeque<Long> recentDisconnects = new ArrayDeque<>();
+  private long disconnectedAt = -1;
+  private long openUntil;
+  private int disconnects;
+  private int reconnects;
+  private int gaveUp;
+  private long lastLatency;
+  private long totalLatency;
+  private long maxLatency;
+
+  /*package*/ synchronized void onDisconnected(long now, @NonNull RetryPolicy policy) {
+    disconnects++;
+    if (disconnectedAt < 0) disconnectedAt = now;
+    if (!policy.hasCircuitBreaker()) return;
+    final long window = TimeUnit.MILLISECONDS.toNanos(policy.breakerWindowMs());
+    recentDisconnects.addLast(now);
+    while (now - recentDisconnects.peekFirst() > window) recentDisconnects.removeFirst();
+    if (recentDisconnects.size() >= policy.breakerFailures()) {
+      recentDisconnects.clear();
+      openUntil = now + TimeUnit.MILLISECONDS.toNanos(policy.breakerOpenMs());
+    }
+  }
+
+  /*package*/ synchronized void onConnected(long now) {
+    if (disconnectedAt < 0) return;
+    lastLatency = now - disconnectedAt;
+    totalLatency += lastLatency;
+    maxLatency = Math.max(maxLatency, lastLatency);
+    reconnects++;
+    disconnectedAt = -1;
+  }
+
+  /*package*/ synchronized void onGaveUp() {
+    gaveUp++;
+  }
+
+  /*package*/ synchronized boolean isOpen(long now) {
+    return now - openUntil < 0;
+  }
+
+  /*package*/ synchronized @NonNull ReconnectStats snapshot(long now) {
+    return new ReconnectStats(disconnects, reconnects, gaveUp, lastLatency, totalLatency,
+        maxLatency, isOpen(now));
+  }
+}
@@ -0,0 +1,474 @@
+package li.vin.my.deviceservice;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * A {@link DeviceConnection} that plays back a {@link FrameCapture} instead of talking to a
+ * device. Frames go through the same parse path the device service uses - the byte decoders for
+ * stream params, {@link ParamImpl#parseCharacteristic} / {@link ParamImpl#matches} / {@link
+ * ParamImpl#parseVal} for the rest - so this is useful for reproducing field captures, regression
+ * testing parsers and benchmarking parse and dispatch throughput off-device.
+ * <p>
+ * Every subscription plays the capture from the start, paced by the captured timestamps scaled by
+ * {@code speed}, or as fast as possible with {@link #MAX_SPEED}.
+ */
+public final class ReplayDeviceConnection implements DeviceConnection {
+  /** Play frames back-to-back with no pacing. */
+  public static final float MAX_SPEED = Float.POSITIVE_INFINITY;
+
+  private static final String TAG = ReplayDeviceConnection.class.getSimpleName();
+
+  private final File capture;
+  private final float speed;
+  private final Scheduler scheduler;
+  private final StreamDemux streamDemux = new StreamDemux(Observable.defer(
+      new Func0<Observable<String>>() {
+        @Override public Observable<String> call() {
+          return values(Params.RAW_STREAM);
+        }
+      }));
+  private final AtomicLong parseFailures = new AtomicLong();
+  private volatile Scheduler deliveryScheduler;
+
+  /** Replay {@code capture} at {@code speed}x real time on the io scheduler. */
+  public static @NonNull ReplayDeviceConnection create(@NonNull File capture, float speed) {
+    return create(capture, speed, Schedulers.io());
+  }
+
+  public static @NonNull ReplayDeviceConnection create(@NonNull File capture, float speed,
+      @NonNull Scheduler scheduler) {
+    if (!(speed > 0)) throw new IllegalArgumentException("speed must be > 0");
+    return new ReplayDeviceConnection(capture, speed, scheduler);
+  }
+
+  private ReplayDeviceConnection(File capture, float speed, Scheduler scheduler) {
+    this.capture = capture;
+    this.speed = speed;
+    this.scheduler = scheduler;
+  }
+
+  @NonNull @Override public <T> Observable<T> observe(@NonNull Param<T> param) {
+    return observe(param, Backpressure.latest());
+  }
+
+  @NonNull @Override public <T> Observable<T> observe(@NonNull Param<T> param,
+      @NonNull Backpressure backpressure) {
+    return deliver(values(param), backpressure);
+  }
+
+  @NonNull @Override public <T extends Number> Observable<T> observe(
+      @NonNull final Param<T> param, @NonNull final Deadband deadband) {
+    if (!ValueType.of(param).isNumeric()) {
+      return Observable.error(new IllegalArgumentException("param is not numeric"));
+    }
+    // always client-side, timed on the playback scheduler; each subscription starts afresh.
+    return deliver(Observable.defer(new Func0<Observable<T>>() {
+      @Override public Observable<T> call() {
+        final DeadbandFilter filter = new DeadbandFilter(deadband);
+        return values(param).filter(new Func1<T, Boolean>() {
+          @Override public Boolean call(T val) {
+            return filter.accept(val.floatValue(), scheduler.now());
+          }
+        });
+      }
+    }), Backpressure.latest());
+  }
+
+  @NonNull @Override public Observable<Float> observe(@NonNull DerivedMetric metric) {
+    final List<Observable<?>> inputs = new ArrayList<>(metric.inputs().size());
+    for (Param<?> input : metric.inputs()) inputs.add(values(input));
+    return deliver(Observable.create(new OnSubscribeDerived(metric, inputs)),
+        Backpressure.latest());
+  }
+
+  private <T> Observable<T> values(@NonNull final Param<T> param) {
+    if (!(param instanceof ParamImpl)) {
+      return Observable.error(new RuntimeException("unrecognized param"));
+    }
+    return playback().lift(new Observable.Operator<T, FrameCapture.Frame>() {
+      @Override public Subscriber<? super FrameCapture.Frame> call(
+          final Subscriber<? super T> child) {
+        final FrameParser<T, ?> parser = parserFor((ParamImpl<T, ?>) param);
+        return new Subscriber<FrameCapture.Frame>(child) {
+          @Override public void onCompleted() {
+            child.onCompleted();
+          }
+
+          @Override public void onError(Throwable e) {
+            child.onError(e);
+          }
+
+          @Override public void onNext(FrameCapture.Frame frame) {
+            T val = parser.parse(frame);
+            if (val != null) child.onNext(val);
+          }
+        };
+      }
+    });
+  }
+
+  private <T> Observable<T> deliver(Observable<T> observable) {
+    final Scheduler delivery = deliveryScheduler;
+    return delivery == null
+        ? observable
+        : observable.observeOn(delivery);
+  }
+
+  // lossy subscribers hop one value at a time, leaving backpressure to decide what they miss.
+  private <T> Observable<T> deliver(Observable<T> observable, Backpressure backpressure) {
+    final Observable<T> applied = backpressure.apply(observable);
+    final Scheduler delivery = deliveryScheduler;
+    return delivery == null
+        ? applied
+        : applied.lift(new OperatorDeliverOn<T>(delivery));
+  }
+
+  @NonNull @Override
+  public Subscription observe(@NonNull Param<Float> param, @NonNull final FloatSink sink) {
+    return observeTimed(param, new TimedSink<Float>() {
+      @Override public void onValue(Float value, long timestampNanos) {
+        sink.onValue(value, timestampNanos);
+      }
+
+      @Override public void onCompleted() {
+        sink.onCompleted();
+      }
+
+      @Override public void onError(Throwable e) {
+        sink.onError(e);
+      }
+    });
+  }
+
+  @NonNull @Override
+  public Subscription observe(@NonNull Param<Integer> param, @NonNull final IntSink sink) {
+    return observeTimed(param, new TimedSink<Integer>() {
+      @Override public void onValue(Integer value, long timestampNanos) {
+        sink.onValue(value, timestampNanos);
+      }
+
+      @Override public void onCompleted() {
+        sink.onCompleted();
+      }
+
+      @Override public void onError(Throwable e) {
+        sink.onError(e);
+      }
+    });
+  }
+
+  @NonNull @Override public Subscription observeAccel(@NonNull final AccelSink sink) {
+    final AccelDecoder decoder = new AccelDecoder();
+    return playback().subscribe(new Subscriber<FrameCapture.Frame>() {
+      @Override public void onCompleted() {
+        sink.onCompleted();
+      }
+
+      @Override public void onError(Throwable e) {
+        sink.onError(e);
+      }
+
+      @Override public void onNext(FrameCapture.Frame frame) {
+        if (!Uuids.ACCEL.equals(frame.uuid())) return;
+        final byte[] val = frame.value();
+        if (decoder.decode(val, val.length)) {
+          sink.onSample(decoder.xyz, decoder.collision, frame.timestampNanos());
+        }
+      }
+    });
+  }
+
+  @NonNull @Override public Observable<AccelBatch> observeAccel(int samples) {
+    return deliver(Observable.create(new OnSubscribeAccelBatch(this, samples))
+        .onBackpressureBuffer());
+  }
+
+  @NonNull @Override
+  public Observable<HarshEvent> observeHarshEvents(@NonNull HarshEventPolicy policy) {
+    return deliver(Observable.create(new OnSubscribeHarshEvents(this, policy))
+        .onBackpressureBuffer());
+  }
+
+  @NonNull @Override public ParamBatch batch(@NonNull Collection<? extends Param<?>> params,
+      @NonNull BatchPolicy policy) {
+    // there's no binder to batch over - each param is parsed from the capture directly.
+    return new ParamBatch() {
+      @NonNull @Override public <T> Observable<T> observe(@NonNull Param<T> param) {
+        return ReplayDeviceConnection.this.observe(param);
+      }
+
+      @NonNull @Override public <T> Observable<T> observe(@NonNull Param<T> param,
+          @NonNull Backpressure backpressure) {
+        return ReplayDeviceConnection.this.observe(param, backpressure);
+      }
+    };
+  }
+
+  @NonNull @Override public Observable<ParamUpdate> observeAll(
+      @NonNull Collection<? extends Param<?>> params) {
+    return deliver(updates(BatchLayout.of(params)).onBackpressureBuffer());
+  }
+
+  @NonNull @Override public Observable<ParamUpdate> observeAll(
+      @NonNull Collection<? extends Param<?>> params, @NonNull BatchPolicy policy) {
+    return observeAll(params);
+  }
+
+  @NonNull @Override public Observable<ParamSnapshot> observeSnapshots(
+      @NonNull Collection<? extends Param<?>> params, @NonNull SnapshotPolicy policy) {
+    final BatchLayout layout = BatchLayout.of(params);
+    return deliver(updates(layout).lift(new OperatorSnapshot(layout, policy, scheduler)),
+        Backpressure.latest());
+  }
+
+  // nothing to batch over - every value is its own update.
+  private Observable<ParamUpdate> updates(BatchLayout layout) {
+    return ParamUpdate.fromEach(layout, new Func1<Param<?>, Observable<?>>() {
+      @Override public Observable<?> call(Param<?> param) {
+        return values(param);
+      }
+    });
+  }
+
+  @NonNull @Override public Observable<ParamValue<?>> observeSupported(
+      @NonNull Collection<? extends Param<?>> params) {
+    return ParamPlanner.observeSupported(this, params);
+  }
+
+  @NonNull @Override public <T> Observable<T> observeMultiplexed(@NonNull Param<T> param) {
+    return StreamDemux.canDemux(param)
+        ? deliver(streamDemux.observe(param), Backpressure.latest())
+        : observe(param);
+  }
+
+  @NonNull @Override public <T extends Number> Observable<WindowStats> observeWindowed(
+      @NonNull Param<T> param, long interval, @NonNull TimeUnit unit) {
+    // windows are timed on the playback scheduler, so they line up with the captured pacing.
+    return deliver(values(param).compose(WindowStats.<T>over(interval, unit, scheduler)),
+        Backpressure.latest());
+  }
+
+  @Override public void setDeliveryScheduler(@Nullable Scheduler scheduler) {
+    deliveryScheduler = scheduler;
+  }
+
+  @Override public void setLinger(long linger, @NonNull TimeUnit unit) {
+    // nothing to keep warm - every subscription plays the capture from the start.
+  }
+
+  @Override public void setRetryPolicy(@NonNull RetryPolicy policy) {
+    // a capture never disconnects.
+  }
+
+  @NonNull @Override public ReconnectStats reconnectStats() {
+    return ReconnectStats.EMPTY;
+  }
+
+  @NonNull @Override public List<OpMetrics> opMetrics() {
+    return Collections.emptyList();
+  }
+
+  @Override public void setMetricsListener(@Nullable OpMetrics.Listener listener) {
+    // no device ops to measure.
+  }
+
+  @NonNull @Override public Observable<Void> resetDtcs() {
+    return Observable.empty();
+  }
+
+  @NonNull @Override public Observable<SupportedPids> supportedPids() {
+    return observe(Params.PIDS).map(new Func1<String, SupportedPids>() {
+      @Override public SupportedPids call(String rawPids) {
+        return new SupportedPids(rawPids);
+      }
+    });
+  }
+
+  /**
+   * Frames on a param's characteristic that threw while being parsed for it, over every
+   * subscription so far. Each one is also logged. Anything but 0 after replaying a capture that
+   * parsed cleanly before points at a parser regression.
+   */
+  public long parseFailures() {
+    return parseFailures.get();
+  }
+
+  @Nullable @Override public String chipId() {
+    return null;
+  }
+
+  @Nullable @Override public String deviceName() {
+    return capture.getName();
+  }
+
+  @Nullable @Override public String deviceIcon() {
+    return null;
+  }
+
+  @NonNull @Override public String deviceId() {
+    return "replay:" + capture.getName();
+  }
+
+  private interface TimedSink<T> {
+    void onValue(T value, long timestampNanos);
+
+    void onCompleted();
+
+    void onError(Throwable e);
+  }
+
+  // sinks report the captured timestamps rather than arrival time, so replays are repeatable.
+  private <T> Subscription observeTimed(@NonNull Param<T> param, final TimedSink<T> sink) {
+    if (!(param instanceof ParamImpl)) {
+      sink.onError(new RuntimeException("unrecognized param"));
+      return Subscriptions.unsubscribed();
+    }
+    final FrameParser<T, ?> parser = parserFor((ParamImpl<T, ?>) param);
+    return playback().subscribe(new Subscriber<FrameCapture.Frame>() {
+      @Override public void onCompleted() {
+        sink.onCompleted();
+      }
+
+      @Override public void onError(Throwable e) {
+        sink.onError(e);
+      }
+
+      @Override public void onNext(FrameCapture.Frame frame) {
+        T val = parser.parse(frame);
+        if (val != null) sink.onValue(val, frame.timestampNanos());
+      }
+    });
+  }
+
+  private Observable<FrameCapture.Frame> playback() {
+    return Observable.create(new Observable.OnSubscribe<FrameCapture.Frame>() {
+      @Override public void call(final Subscriber<? super FrameCapture.Frame> subscriber) {
+        final FrameCapture.Reader reader;
+        try {
+          reader = new FrameCapture.Reader(capture);
+        } catch (IOException e) {
+          subscriber.onError(e);
+          return;
+        }
+        final Scheduler.Worker worker = scheduler.createWorker();
+        subscriber.add(worker);
+        subscriber.add(Subscriptions.create(new Action0() {
+          @Override public void call() {
+            closeQuietly(reader);
+          }
+        }));
+        worker.schedule(new Action0() {
+          private long startNanos = -1;
+          private long firstTimestampNanos;
+          private FrameCapture.Frame pending;
+
+          @Override public void call() {
+            try {
+              while (!subscriber.isUnsubscribed()) {
+                if (pending == null) pending = reader.next();
+                if (pending == null) {
+                  closeQuietly(reader);
+                  subscriber.onCompleted();
+                  return;
+                }
+                if (speed != MAX_SPEED) {
+                  if (startNanos < 0) {
+                    startNanos = System.nanoTime();
+                    firstTimestampNanos = pending.timestampNanos();
+                  }
+                  long due = startNanos
+                      + (long) ((pending.timestampNanos() - firstTimestampNanos) / speed);
+                  long wait = due - System.nanoTime();
+                  if (wait > 0) {
+                    worker.schedule(this, wait, TimeUnit.NANOSECONDS);
+                    return;
+                  }
+                }
+                FrameCapture.Frame frame = pending;
+                pending = null;
+                subscriber.onNext(frame);
+              }
+            } catch (IOException e) {
+              if (!subscriber.isUnsubscribed()) subscriber.onError(e);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private static void closeQuietly(FrameCapture.Reader reader) {
+    try {
+      reader.close();
+    } catch (IOException ignored) {
+    }
+  }
+
+  private <T, I> FrameParser<T, I> parserFor(ParamImpl<T, I> param) {
+    return new FrameParser<>(param, parseFailures);
+  }
+
+  /** Runs frames through a Param's parse path. One per subscriber - it reuses a characteristic. */
+  private static final class FrameParser<T, I> {
+    private final ParamImpl<T, I> param;
+    private final BluetoothGattCharacteristic characteristic;
+    private final AtomicLong failures;
+
+    private FrameParser(ParamImpl<T, I> param, AtomicLong failures) {
+      this.param = param;
+      this.characteristic = new BluetoothGattCharacteristic(param.uuid, 0, 0);
+      this.failures = failures;
+    }
+
+    /**
+     * The parsed value, or null if the frame isn't for this param or doesn't parse. Parse errors
+     * are counted and logged rather than failing playback, so one bad frame doesn't hide the rest.
+     */
+    private T parse(FrameCapture.Frame frame) {
+      if (!param.uuid.equals(frame.uuid())) return null;
+      try {
+        if (param instanceof ParamStreamFloat || param instanceof ParamStreamInt) {
+          return parseStream(frame.value());
+        }
+        characteristic.setValue(frame.value());
+        I input = param.parseCharacteristic(characteristic);
+        return param.matches(input) ? param.parseVal(input) : null;
+      } catch (RuntimeException e) {
+        failures.incrementAndGet();
+        Log.w(TAG, "failed to parse frame for " + Params.nameFor(param), e);
+        return null;
+      }
+    }
+
+    // stream params decode straight from the bytes, as StreamDemux does, skipping the Strings.
+    @SuppressWarnings("unchecked")
+    private T parseStream(byte[] val) {
+      final int off = ParamStream.frameStart(val);
+      final int end = ParamStream.frameEnd(val);
+      if (!((ParamStream<?>) param).matches(val, off, end)) return null;
+      return (T) (param instanceof ParamStreamFloat
+          ? (Object) ((ParamStreamFloat) param).decodeFloat(val, off, end)
+          : (Object) ((ParamStreamInt) param).decodeInt(val, off, end));
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How ops reopen after the device service disconnects, e.g. because My Vinli crashed. Attempts
+ * are counted per op since it last delivered a value (for sinks, since they were opened), and
+ * wait {@code initialDelay * 2^(attempt - 1)}, capped at {@code maxDelay} and optionally
+ * randomized by {@link #withJitter(float)}.
+ * <p>
+ * {@link #withCircuitBreaker} additionally stops every op of a connection from retrying for a
+ * while once the service keeps disconnecting, so a crash looping service isn't rebound in a hot
+ * loop. Ops that give up fail with {@link GaveUpException}.
+ */
+public final class RetryPolicy {
+  private static final RetryPolicy IMMEDIATE =
+      new RetryPolicy(0, 0, 0, Integer.MAX_VALUE, 0, 0, 0);
+
+  private final long initialDelayMs;
+  private final long maxDelayMs;
+  private final float jitter;
+  private final int maxAttempts;
+  private final int breakerFailures;
+  private final long breakerWindowMs;
+  private final long breakerOpenMs;
+
+  /** Retry straight away, forever. The default. */
+  public static @NonNull RetryPolicy immediate() {
+    return IMMEDIATE;
+  }
+
+  public static @NonNull RetryPolicy exponentialBackoff(long initialDelay, long maxDelay,
+      @NonNull TimeUnit unit) {
+    if (initialDelay < 0) throw new IllegalArgumentException("initialDelay < 0");
+    if (maxDelay < initialDelay) throw new IllegalArgumentException("maxDelay < initialDelay");
+    return new RetryPolicy(unit.toMillis(initialDelay), unit.toMillis(maxDelay), 0,
+        Integer.MAX_VALUE, 0, 0, 0);
+  }
+
+  private RetryPolicy(long initialDelayMs, long maxDelayMs, float jitter, int maxAttempts,
+      int breakerFailures, long breakerWindowMs, long breakerOpenMs) {
+    this.initialDelayMs = initialDelayMs;
+    this.maxDelayMs = maxDelayMs;
+    this.jitter = jitter;
+    this.maxAttempts = maxAttempts;
+    this.breakerFailures = breakerFailures;
+    this.breakerWindowMs = breakerWindowMs;
+    this.breakerOpenMs = breakerOpenMs;
+  }
+
+  /** Copy of this policy that spreads each delay uniformly by +/- {@code jitter} of itself. */
+  public @NonNull RetryPolicy withJitter(float jitter) {
+    if (jitter < 0 || jitter > 1) throw new IllegalArgumentException("jitter must be in [0, 1]");
+    return new RetryPolicy(initialDelayMs, maxDelayMs, jitter, maxAttempts, breakerFailures,
+        breakerWindowMs, breakerOpenMs);
+  }
+
+  /** Copy of this policy that gives up after {@code maxAttempts} attempts in a row. */
+  public @NonNull RetryPolicy withMaxAttempts(int maxAttempts) {
+    if (maxAttempts < 0) throw new IllegalArgumentException("maxAttempts < 0");
+    return new RetryPolicy(initialDelayMs, maxDelayMs, jitter, maxAttempts, breakerFailures,
+        breakerWindowMs, breakerOpenMs);
+  }
+
+  /**
+   * Copy of this policy that, once the service has disconnected {@code failures} times within
+   * {@code window}, fails every retry for {@code openFor} instead of rebinding.
+   */
+  public @NonNull RetryPolicy withCircuitBreaker(int failures, long window, long openFor,
+      @NonNull TimeUnit unit) {
+    if (failures < 1) throw new IllegalArgumentException("failures < 1");
+    if (window <= 0 || openFor <= 0) throw new IllegalArgumentException("window/openFor <= 0");
+    return new RetryPolicy(initialDelayMs, maxDelayMs, jitter, maxAttempts, failures,
+        unit.toMillis(window), unit.toMillis(openFor));
+  }
+
+  /** Delay before {@code attempt} (1-based), or -1 to give up. */
+  /*package*/ long delayMs(int attempt, @NonNull Random random) {
+    if (attempt > maxAttempts) return -1;
+    if (initialDelayMs == 0) return 0;
+    long delay = initialDelayMs;
+    for (int i = 1; i < attempt && delay < maxDelayMs && delay <= Long.MAX_VALUE / 2; i++) {
+      delay <<= 1;
+    }
+    delay = Math.min(delay, maxDelayMs);
+    if (jitter > 0) {
+      final double spread;
+      synchronized (random) {
+        spread = random.nextDouble() * 2 - 1;
+      }
+      delay = Math.max(0, (long) (delay * (1 + jitter * spread)));
+    }
+    return delay;
+  }
+
+  /*package*/ boolean hasCircuitBreaker() {
+    return breakerFailures > 0;
+  }
+
+  /*package*/ int breakerFailures() {
+    return breakerFailures;
+  }
+
+  /*package*/ long breakerWindowMs() {
+    return breakerWindowMs;
+  }
+
+  /*package*/ long breakerOpenMs() {
+    return breakerOpenMs;
+  }
+
+  /** An op stopped retrying under its {@link RetryPolicy}; the cause is the last disconnect. */
+  public static final class GaveUpException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /*package*/ GaveUpException(String msg, Throwable cause) {
+      super(msg, cause);
+    }
+  }
+}
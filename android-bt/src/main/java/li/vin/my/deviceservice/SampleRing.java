@@ -0,0 +1,138 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Single-producer / single-consumer ring of fixed-size samples in a memory region shared between
+ * the device service (writer) and the SDK (reader). The binder is only used as a doorbell that
+ * carries the writer's sequence number, which also gives us the memory barrier we need - the
+ * reader never polls the shared header.
+ * <p>
+ * Layout, in native byte order:
+ * <pre>
+ *   header: int magic, int version, int capacity, int slotSize
+ *   slot:   long seq, int id, float value, long timestampNanos
+ * </pre>
+ * Sample {@code seq} lives in slot {@code seq % capacity}. The writer never waits for the reader;
+ * a reader that falls more than {@code capacity} behind skips ahead and counts the overwritten
+ * samples as dropped.
+ */
+/*package*/ final class SampleRing {
+  /*package*/ static final int MAGIC = 0x56524e47; // VRNG
+  /*package*/ static final int VERSION = 1;
+  /*package*/ static final int HEADER_SIZE = 16;
+  /*package*/ static final int SLOT_SIZE = 24;
+
+  private static final int OFF_SEQ = 0;
+  private static final int OFF_ID = 8;
+  private static final int OFF_VALUE = 12;
+  private static final int OFF_TIMESTAMP = 16;
+
+  /*package*/ static int sizeFor(int capacity) {
+    return HEADER_SIZE + capacity * SLOT_SIZE;
+  }
+
+  private static int slotOffset(long seq, int capacity) {
+    return HEADER_SIZE + (int) (seq % capacity) * SLOT_SIZE;
+  }
+
+  /*package*/ static final class Writer {
+    private final ByteBuffer buf;
+    private final int capacity;
+    private long writeSeq;
+
+    /*package*/ Writer(@NonNull ByteBuffer buf, int capacity) {
+      if (capacity < 1) throw new IllegalArgumentException("capacity < 1");
+      if (buf.capacity() < sizeFor(capacity)) throw new IllegalArgumentException("buf too small");
+      this.buf = buf.order(ByteOrder.nativeOrder());
+      this.capacity = capacity;
+      buf.putInt(0, MAGIC);
+      buf.putInt(4, VERSION);
+      buf.putInt(8, capacity);
+      buf.putInt(12, SLOT_SIZE);
+    }
+
+    /** Publish one sample; returns the sequence number to ring the doorbell with. */
+    /*package*/ long put(int id, float value, long timestampNanos) {
+      final long seq = writeSeq;
+      final int off = slotOffset(seq, capacity);
+      // invalidate first so a lapped reader can't mistake a half-written slot for the old sample.
+      buf.putLong(off + OFF_SEQ, -1);
+      buf.putInt(off + OFF_ID, id);
+      buf.putFloat(off + OFF_VALUE, value);
+      buf.putLong(off + OFF_TIMESTAMP, timestampNanos);
+      buf.putLong(off + OFF_SEQ, seq);
+      return writeSeq = seq + 1;
+    }
+  }
+
+  /*package*/ static final class Reader {
+    private final ByteBuffer buf;
+    private final int capacity;
+    private long readSeq;
+    private long dropped;
+
+    /*package*/ Reader(@NonNull ByteBuffer buf) {
+      this.buf = buf.order(ByteOrder.nativeOrder());
+      if (buf.getInt(0) != MAGIC) throw new IllegalArgumentException("not a sample ring");
+      if (buf.getInt(4) != VERSION) throw new IllegalArgumentException("unknown ring version");
+      if (buf.getInt(12) != SLOT_SIZE) throw new IllegalArgumentException("unknown slot size");
+      capacity = buf.getInt(8);
+      if (capacity < 1 || buf.capacity() < sizeFor(capacity)) {
+        throw new IllegalArgumentException("bad ring capacity " + capacity);
+      }
+    }
+
+    /**
+     * Read everything published before {@code writeSeq}. Returns null when there's nothing new.
+     */
+    /*package*/ @Nullable ValueBatch drain(long writeSeq) {
+      if (writeSeq - readSeq > capacity) {
+        dropped += writeSeq - capacity - readSeq;
+        readSeq = writeSeq - capacity;
+      }
+      final int max = (int) Math.max(0, writeSeq - readSeq);
+      if (max == 0) return null;
+
+      final int[] ids = new int[max];
+      final float[] values = new float[max];
+      final long[] timestamps = new long[max];
+      int n = 0;
+      for (long seq = readSeq; seq < writeSeq; seq++) {
+        final int off = slotOffset(seq, capacity);
+        if (buf.getLong(off + OFF_SEQ) != seq) {
+          dropped++;
+          continue;
+        }
+        ids[n] = buf.getInt(off + OFF_ID);
+        values[n] = buf.getFloat(off + OFF_VALUE);
+        timestamps[n] = buf.getLong(off + OFF_TIMESTAMP);
+        // the writer lapped us mid-read - the slot now holds a newer sample.
+        if (buf.getLong(off + OFF_SEQ) != seq) {
+          dropped++;
+        } else {
+          n++;
+        }
+      }
+      readSeq = writeSeq;
+
+      if (n == 0) return null;
+      return n == max
+          ? new ValueBatch(ids, values, timestamps)
+          : new ValueBatch(Arrays.copyOf(ids, n), Arrays.copyOf(values, n),
+              Arrays.copyOf(timestamps, n));
+    }
+
+    /** Samples lost to the writer lapping this reader. */
+    /*package*/ long dropped() {
+      return dropped;
+    }
+  }
+
+  private SampleRing() {
+  }
+}
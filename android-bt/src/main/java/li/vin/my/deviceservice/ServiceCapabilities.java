@@ -0,0 +1,32 @@
+package li.vin.my.deviceservice;
+
+import android.os.RemoteException;
+
+/**
+ * Optional features a device service advertises through {@link IDevServ#capabilities()}. Services
+ * that predate a feature report 0 for it, so callers must fall back to the per-value ops.
+ */
+/*package*/ final class ServiceCapabilities {
+  /** {@link IDevServ#observeBatch} is implemented. */
+  /*package*/ static final int BATCH = 1;
+  /** {@link IDevServ#observeRing} is implemented. */
+  /*package*/ static final int RING = 1 << 1;
+  /** {@link IDevServ#observeFloatDeadband} and {@link IDevServ#observeIntDeadband} are. */
+  /*package*/ static final int DEADBAND = 1 << 2;
+
+  /*package*/ static boolean has(IDevServ iVinliService, int capability) throws RemoteException {
+    return (iVinliService.capabilities() & capability) == capability;
+  }
+
+  /** Thrown from initOp when the bound service lacks a capability, to trigger a fallback. */
+  /*package*/ static final class NotSupportedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /*package*/ NotSupportedException(String msg) {
+      super(msg);
+    }
+  }
+
+  private ServiceCapabilities() {
+  }
+}
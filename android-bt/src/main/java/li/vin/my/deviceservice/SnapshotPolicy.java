@@ -0,0 +1,56 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When {@link DeviceConnection#observeSnapshots} emits a {@link ParamSnapshot}, and how old a
+ * param's latest value may get before the snapshot reports it as missing.
+ */
+public final class SnapshotPolicy {
+  private final long intervalNanos;
+  private final long maxAgeNanos;
+  private final boolean requireAll;
+
+  /** Emit every {@code interval}, whether or not anything changed. */
+  public static @NonNull SnapshotPolicy atRate(long interval, @NonNull TimeUnit unit) {
+    if (interval <= 0) throw new IllegalArgumentException("interval must be > 0");
+    return new SnapshotPolicy(unit.toNanos(interval), 0, false);
+  }
+
+  /** Emit whenever new values arrive from the device. */
+  public static @NonNull SnapshotPolicy onChange() {
+    return new SnapshotPolicy(0, 0, false);
+  }
+
+  private SnapshotPolicy(long intervalNanos, long maxAgeNanos, boolean requireAll) {
+    this.intervalNanos = intervalNanos;
+    this.maxAgeNanos = maxAgeNanos;
+    this.requireAll = requireAll;
+  }
+
+  /** Copy of this policy that treats values older than {@code maxAge} as missing. */
+  public @NonNull SnapshotPolicy withMaxAge(long maxAge, @NonNull TimeUnit unit) {
+    if (maxAge <= 0) throw new IllegalArgumentException("maxAge must be > 0");
+    return new SnapshotPolicy(intervalNanos, unit.toNanos(maxAge), requireAll);
+  }
+
+  /** Copy of this policy that skips snapshots until every param has a fresh value. */
+  public @NonNull SnapshotPolicy requireAll() {
+    return new SnapshotPolicy(intervalNanos, maxAgeNanos, true);
+  }
+
+  /** 0 when emitting on change. */
+  /*package*/ long intervalNanos() {
+    return intervalNanos;
+  }
+
+  /** 0 for no limit. */
+  /*package*/ long maxAgeNanos() {
+    return maxAgeNanos;
+  }
+
+  /*package*/ boolean requiresAll() {
+    return requireAll;
+  }
+}
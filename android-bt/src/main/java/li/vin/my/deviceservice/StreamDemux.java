@@ -0,0 +1,182 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Serves every {@link ParamStreamFloat} / {@link ParamStreamInt} on {@link Uuids#STREAM} from a
+ * single {@link Params#RAW_STREAM} op. Each frame is looked up by its PID byte in a 256-entry
+ * table and its payload parsed once, out of a reused scratch buffer, then every Param routed to
+ * that PID derives its value from that one parse - so e.g. COOLANT_TEMP_C and COOLANT_TEMP_F cost
+ * one device op and one frame parse between them.
+ * <p>
+ * Frames are demultiplexed on whichever thread the raw op calls back on, before any conflation
+ * or hop to a delivery scheduler; the connection applies those per param to what {@link
+ * #observe} returns, which doesn't support backpressure itself.
+ */
+/*package*/ final class StreamDemux {
+  private static final String TAG = StreamDemux.class.getSimpleName();
+  private static final Route[] NO_ROUTES = new Route[0];
+
+  private final Observable<String> frames;
+  // copy-on-write route arrays per PID byte, so dispatch never takes the registration lock.
+  private final AtomicReferenceArray<Route[]> table = new AtomicReferenceArray<>(256);
+  private int routeCount;
+  private Subscription raw;
+
+  private final Object scratchLock = new Object();
+  private byte[] scratch = new byte[32];
+
+  /** Demultiplexes {@code frames}, the connection's unconflated {@link Params#RAW_STREAM}. */
+  /*package*/ StreamDemux(@NonNull Observable<String> frames) {
+    this.frames = frames;
+  }
+
+  /*package*/ static boolean canDemux(@NonNull Param<?> param) {
+    return (param instanceof ParamStreamFloat || param instanceof ParamStreamInt)
+        && Uuids.STREAM.equals(((ParamStream<?>) param).uuid)
+        && ParamPlanner.isPid(param);
+  }
+
+  /*package*/ <T> Observable<T> observe(@NonNull final Param<T> param) {
+    if (!canDemux(param)) {
+      return Observable.error(new IllegalArgumentException("param not on the stream"));
+    }
+    final int pid = Integer.parseInt(param.getCode(), 16);
+    return Observable.create(new Observable.OnSubscribe<T>() {
+      @Override public void call(Subscriber<? super T> subscriber) {
+        final Route route = new Route((ParamStream<?>) param, subscriber);
+        subscriber.add(Subscriptions.create(new Action0() {
+          @Override public void call() {
+            removeRoute(pid, route);
+          }
+        }));
+        if (!subscriber.isUnsubscribed()) addRoute(pid, route);
+      }
+    });
+  }
+
+  private synchronized void addRoute(int pid, Route route) {
+    Route[] prev = table.get(pid);
+    if (prev == null) prev = NO_ROUTES;
+    Route[] next = Arrays.copyOf(prev, prev.length + 1);
+    next[prev.length] = route;
+    table.set(pid, next);
+    if (routeCount++ == 0) {
+      Log.d(TAG, "first route added, subscribing to raw stream.");
+      final Subscription sub = frames.subscribe(new Subscriber<String>() {
+        @Override public void onCompleted() {
+          terminate(null);
+        }
+
+        @Override public void onError(Throwable e) {
+          terminate(e);
+        }
+
+        @Override public void onNext(String frame) {
+          dispatch(frame);
+        }
+      });
+      // frames may have ended, and terminate() cleared every route, before subscribe returned.
+      if (routeCount > 0 && raw == null) {
+        raw = sub;
+      } else {
+        sub.unsubscribe();
+      }
+    }
+  }
+
+  private synchronized void removeRoute(int pid, Route route) {
+    Route[] prev = table.get(pid);
+    if (prev == null) return;
+    int idx = -1;
+    for (int i = 0; i < prev.length; i++) {
+      if (prev[i] == route) {
+        idx = i;
+        break;
+      }
+    }
+    if (idx < 0) return;
+    Route[] next = new Route[prev.length - 1];
+    System.arraycopy(prev, 0, next, 0, idx);
+    System.arraycopy(prev, idx + 1, next, idx, next.length - idx);
+    table.set(pid, next.length == 0 ? null : next);
+    if (--routeCount == 0 && raw != null) {
+      Log.d(TAG, "last route removed, unsubscribing from raw stream.");
+      raw.unsubscribe();
+      raw = null;
+    }
+  }
+
+  private void terminate(Throwable e) {
+    Route[][] routes = new Route[256][];
+    synchronized (this) {
+      for (int pid = 0; pid < 256; pid++) routes[pid] = table.getAndSet(pid, null);
+      routeCount = 0;
+      raw = null;
+    }
+    for (Route[] pidRoutes : routes) {
+      if (pidRoutes == null) continue;
+      for (Route route : pidRoutes) {
+        if (route.subscriber.isUnsubscribed()) continue;
+        if (e == null) {
+          route.subscriber.onCompleted();
+        } else {
+          route.subscriber.onError(e);
+        }
+      }
+    }
+  }
+
+  // frames look like "41XX{data}" where XX is the PID.
+  private void dispatch(String frame) {
+    final int len = frame.length();
+    if (len < 4 || frame.charAt(0) != '4' || frame.charAt(1) != '1') return;
+    final int hi = Hex.digit(frame.charAt(2));
+    final int lo = Hex.digit(frame.charAt(3));
+    if (hi < 0 || lo < 0) return;
+    final Route[] routes = table.get((hi << 4) | lo);
+    if (routes == null) return;
+
+    // parse under the lock, but emit outside it, so a slow or re-entrant subscriber can't hold
+    // up every other PID on the characteristic.
+    final int payload;
+    synchronized (scratchLock) {
+      if (scratch.length < len) scratch = new byte[len];
+      for (int i = 0; i < len; i++) scratch[i] = (byte) frame.charAt(i);
+      try {
+        payload = ParamStream.payload(scratch, 2, len);
+      } catch (RuntimeException e) {
+        Log.w(TAG, "dropping undecodable frame " + frame, e);
+        return;
+      }
+    }
+    for (Route route : routes) route.emit(payload);
+  }
+
+  private static final class Route {
+    private final ParamStream<?> param;
+    private final Subscriber<Object> subscriber;
+
+    @SuppressWarnings("unchecked")
+    private Route(ParamStream<?> param, Subscriber<?> subscriber) {
+      this.param = param;
+      this.subscriber = (Subscriber<Object>) subscriber;
+    }
+
+    /** Emits this route's value for its PID's {@link ParamStream#payload}. */
+    private void emit(int payload) {
+      if (subscriber.isUnsubscribed()) return;
+      subscriber.onNext(param instanceof ParamStreamFloat
+          ? (Object) ((ParamStreamFloat) param).fromPayload(payload)
+          : (Object) ((ParamStreamInt) param).fromPayload(payload));
+    }
+  }
+}
@@ -1,91 +1,94 @@
 package li.vin.my.deviceservice;
 
 import android.support.annotation.NonNull;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * Created by christophercasey on 8/5/15.
  */
 public final class SupportedPids {
 
-  private static final Set<String> KNOWN_UNSUPPORTED_PIDS;
-  static {
-    KNOWN_UNSUPPORTED_PIDS = new HashSet<>();
+  private static final int MAX_PID = 0xff;
 
+  /** Bit per PID, same layout as {@link #bits}. */
+  private static final long[] KNOWN_UNSUPPORTED_PIDS = new long[words(MAX_PID)];
+  static {
     // markers for supported pids
-    KNOWN_UNSUPPORTED_PIDS.add("00");
-    KNOWN_UNSUPPORTED_PIDS.add("20");
-    KNOWN_UNSUPPORTED_PIDS.add("40");
-    KNOWN_UNSUPPORTED_PIDS.add("60");
-    KNOWN_UNSUPPORTED_PIDS.add("80");
+    knownUnsupported(0x00);
+    knownUnsupported(0x20);
+    knownUnsupported(0x40);
+    knownUnsupported(0x60);
+    knownUnsupported(0x80);
 
     // dtcs
-    KNOWN_UNSUPPORTED_PIDS.add("01");
+    knownUnsupported(0x01);
 
     // accelerometer
-    KNOWN_UNSUPPORTED_PIDS.add("0c");
+    knownUnsupported(0x0c);
 
     // >2 byte pids from https://en.wikipedia.org/wiki/OBD-II_PIDs#Standard_PIDs
-    KNOWN_UNSUPPORTED_PIDS.add("24");
-    KNOWN_UNSUPPORTED_PIDS.add("25");
-    KNOWN_UNSUPPORTED_PIDS.add("26");
-    KNOWN_UNSUPPORTED_PIDS.add("27");
-    KNOWN_UNSUPPORTED_PIDS.add("28");
-    KNOWN_UNSUPPORTED_PIDS.add("29");
-    KNOWN_UNSUPPORTED_PIDS.add("2a");
-    KNOWN_UNSUPPORTED_PIDS.add("2b");
-
-    KNOWN_UNSUPPORTED_PIDS.add("34");
-    KNOWN_UNSUPPORTED_PIDS.add("35");
-    KNOWN_UNSUPPORTED_PIDS.add("36");
-    KNOWN_UNSUPPORTED_PIDS.add("37");
-    KNOWN_UNSUPPORTED_PIDS.add("38");
-    KNOWN_UNSUPPORTED_PIDS.add("39");
-    KNOWN_UNSUPPORTED_PIDS.add("3a");
-    KNOWN_UNSUPPORTED_PIDS.add("3b");
-
-    KNOWN_UNSUPPORTED_PIDS.add("41");
-    KNOWN_UNSUPPORTED_PIDS.add("4f");
-    KNOWN_UNSUPPORTED_PIDS.add("50");
-
-    KNOWN_UNSUPPORTED_PIDS.add("64");
-    //KNOWN_UNSUPPORTED_PIDS.add("66");
-    KNOWN_UNSUPPORTED_PIDS.add("67");
-    KNOWN_UNSUPPORTED_PIDS.add("68");
-    KNOWN_UNSUPPORTED_PIDS.add("69");
-    KNOWN_UNSUPPORTED_PIDS.add("6a");
-    KNOWN_UNSUPPORTED_PIDS.add("6b");
-    KNOWN_UNSUPPORTED_PIDS.add("6c");
-    KNOWN_UNSUPPORTED_PIDS.add("6d");
-    KNOWN_UNSUPPORTED_PIDS.add("6e");
-    KNOWN_UNSUPPORTED_PIDS.add("6f");
-
-    KNOWN_UNSUPPORTED_PIDS.add("70");
-    KNOWN_UNSUPPORTED_PIDS.add("71");
-    KNOWN_UNSUPPORTED_PIDS.add("72");
-    KNOWN_UNSUPPORTED_PIDS.add("73");
-    KNOWN_UNSUPPORTED_PIDS.add("74");
-    KNOWN_UNSUPPORTED_PIDS.add("75");
-    KNOWN_UNSUPPORTED_PIDS.add("76");
-    KNOWN_UNSUPPORTED_PIDS.add("77");
-    KNOWN_UNSUPPORTED_PIDS.add("78");
-    KNOWN_UNSUPPORTED_PIDS.add("79");
-    KNOWN_UNSUPPORTED_PIDS.add("7a");
-    KNOWN_UNSUPPORTED_PIDS.add("7b");
-    KNOWN_UNSUPPORTED_PIDS.add("7c");
-    KNOWN_UNSUPPORTED_PIDS.add("7f");
-
-    KNOWN_UNSUPPORTED_PIDS.add("81");
-    KNOWN_UNSUPPORTED_PIDS.add("82");
-    KNOWN_UNSUPPORTED_PIDS.add("83");
-
-    KNOWN_UNSUPPORTED_PIDS.add("a0");
-    KNOWN_UNSUPPORTED_PIDS.add("c0");
+    knownUnsupported(0x24);
+    knownUnsupported(0x25);
+    knownUnsupported(0x26);
+    knownUnsupported(0x27);
+    knownUnsupported(0x28);
+    knownUnsupported(0x29);
+    knownUnsupported(0x2a);
+    knownUnsupported(0x2b);
+
+    knownUnsupported(0x34);
+    knownUnsupported(0x35);
+    knownUnsupported(0x36);
+    knownUnsupported(0x37);
+    knownUnsupported(0x38);
+    knownUnsupported(0x39);
+    knownUnsupported(0x3a);
+    knownUnsupported(0x3b);
+
+    knownUnsupported(0x41);
+    knownUnsupported(0x4f);
+    knownUnsupported(0x50);
+
+    knownUnsupported(0x64);
+    //knownUnsupported(0x66);
+    knownUnsupported(0x67);
+    knownUnsupported(0x68);
+    knownUnsupported(0x69);
+    knownUnsupported(0x6a);
+    knownUnsupported(0x6b);
+    knownUnsupported(0x6c);
+    knownUnsupported(0x6d);
+    knownUnsupported(0x6e);
+    knownUnsupported(0x6f);
+
+    knownUnsupported(0x70);
+    knownUnsupported(0x71);
+    knownUnsupported(0x72);
+    knownUnsupported(0x73);
+    knownUnsupported(0x74);
+    knownUnsupported(0x75);
+    knownUnsupported(0x76);
+    knownUnsupported(0x77);
+    knownUnsupported(0x78);
+    knownUnsupported(0x79);
+    knownUnsupported(0x7a);
+    knownUnsupported(0x7b);
+    knownUnsupported(0x7c);
+    knownUnsupported(0x7f);
+
+    knownUnsupported(0x81);
+    knownUnsupported(0x82);
+    knownUnsupported(0x83);
+
+    knownUnsupported(0xa0);
+    knownUnsupported(0xc0);
+  }
+
+  private static void knownUnsupported(int pid) {
+    KNOWN_UNSUPPORTED_PIDS[pid >>> 6] |= 1L << pid;
+  }
+
+  private static int words(int maxPid) {
+    return (maxPid >>> 6) + 1;
   }
 
   public static class InvalidParamException extends Exception {
@@ -95,10 +98,34 @@ public final class SupportedPids {
   }
 
   private final String raw;
-  private HashMap<String,Boolean> supportMap;
+  /** Bit {@code pid & 63} of word {@code pid >>> 6} is set if the vehicle reports that PID. */
+  private final long[] reported;
+  /** {@link #reported} less {@link #KNOWN_UNSUPPORTED_PIDS}, same layout. */
+  private final long[] bits;
+  private final int maxPid;
 
   /*package*/ SupportedPids(@NonNull String raw) {
     this.raw = raw;
+    // raw is one 8-digit hex group per 32 PIDs, MSB first; group g covers PIDs g*32+1..g*32+32.
+    // a trailing partial group is ignored.
+    final int groups = raw.length() / 8;
+    maxPid = groups * 32;
+    reported = new long[words(maxPid)];
+    for (int i = 0, n = groups * 8; i < n; i++) {
+      final int nibble = Hex.digit(raw.charAt(i));
+      if (nibble < 0) {
+        throw new NumberFormatException("bad hex digit '" + raw.charAt(i) + "' in " + raw);
+      }
+      final int pid = i * 4 + 1;
+      for (int b = 0; b < 4; b++) {
+        if ((nibble & (8 >>> b)) != 0) reported[(pid + b) >>> 6] |= 1L << (pid + b);
+      }
+    }
+    // fold the known-unsupported mask in once so lookups are a single bit test.
+    bits = reported.clone();
+    for (int w = 0; w < bits.length && w < KNOWN_UNSUPPORTED_PIDS.length; w++) {
+      bits[w] &= ~KNOWN_UNSUPPORTED_PIDS[w];
+    }
   }
 
   public String getRaw() {
@@ -108,65 +135,65 @@ public final class SupportedPids {
   public <T extends Param<?>> boolean supports(@NonNull T param) throws InvalidParamException {
     String code = param.getCode();
     if (code == null) throw new InvalidParamException("Must provide Param with nonnull code.");
-    code = code.toLowerCase(Locale.US);
-    if (KNOWN_UNSUPPORTED_PIDS.contains(code)) return false;
-    if (supportMap == null) buildSupportMap();
-    Boolean result = supportMap.get(code);
-    return result == null ? false : result;
+    if (code.length() != 2) return false;
+    final int hi = Hex.digit(code.charAt(0));
+    final int lo = Hex.digit(code.charAt(1));
+    return hi >= 0 && lo >= 0 && supports((hi << 4) | lo);
   }
 
-  @Override public String toString() {
-    if (supportMap == null) buildSupportMap();
-    StringBuilder sb = new StringBuilder();
-    for (Map.Entry<String,Boolean> entry : supportMap.entrySet()) {
-      String key = entry.getKey();
-      Boolean val = entry.getValue();
-      if (sb.length() != 0) sb.append("::");
-      sb.append("key='")
-          .append(key)
-          .append("',val='")
-          .append(val)
-          .append("'");
-    }
-    return sb.toString();
+  /**
+   * Whether the vehicle supports the given mode 01 PID, e.g. {@code 0x0d} for speed. Like {@link
+   * #supports(Param)}, this applies the SDK's known-unsupported list, so the range markers, DTCs,
+   * {@code 0x0c} and the multi-byte PIDs are never supported whatever the vehicle reports.
+   */
+  public boolean supports(int pid) {
+    return pid > 0 && pid <= maxPid && (bits[pid >>> 6] & (1L << pid)) != 0;
   }
 
-  private void buildSupportMap() {
-    supportMap = new HashMap<>();
-    ArrayList<String> groups = new ArrayList<>();
-    StringBuilder sb = new StringBuilder();
-    for (int i=0; i<raw.length(); i++) {
-      if (sb.length() == 8) {
-        groups.add(sb.toString());
-        sb.delete(0, 8);
+  /** Whether the vehicle's own bitmap has {@code pid}, before the known-unsupported list. */
+  /*package*/ boolean reportedByVehicle(int pid) {
+    return pid > 0 && pid <= maxPid && (reported[pid >>> 6] & (1L << pid)) != 0;
+  }
+
+  /**
+   * The first supported PID at or after {@code fromPid}, or -1 if there are none. Iterate all
+   * supported PIDs without allocating with
+   * {@code for (int p = s.nextSupported(0); p >= 0; p = s.nextSupported(p + 1))}.
+   */
+  public int nextSupported(int fromPid) {
+    if (fromPid < 0) fromPid = 0;
+    if (fromPid > maxPid) return -1;
+    int w = fromPid >>> 6;
+    long word = bits[w] & (-1L << fromPid);
+    while (true) {
+      if (word != 0) {
+        final int pid = (w << 6) + Long.numberOfTrailingZeros(word);
+        return pid <= maxPid ? pid : -1;
       }
-      sb.append(raw.charAt(i));
-    }
-    if (sb.length() == 8) {
-      groups.add(sb.toString());
-    }
-    for (int i=0; i<groups.size(); i++) {
-      parseBitflags(i, groups.get(i));
+      if (++w == bits.length) return -1;
+      word = bits[w];
     }
   }
 
-  private void parseBitflags(int group, String bitflags) {
-    int groupStart = group * 32 + 1;
-    for (int i=0; i<8; i++) {
-      int j = i * 4;
-      int hexInt = Integer.parseInt(bitflags.substring(i, i+1), 16);
-      String bin = Integer.toBinaryString(hexInt);
-      while (bin.length() < 4) bin = '0' + bin;
-      putIntoMap(groupStart + j, bin.charAt(0) == '1');
-      putIntoMap(groupStart + j + 1, bin.charAt(1) == '1');
-      putIntoMap(groupStart + j + 2, bin.charAt(2) == '1');
-      putIntoMap(groupStart + j + 3, bin.charAt(3) == '1');
-    }
+  /** Number of supported PIDs. */
+  public int supportedCount() {
+    int count = 0;
+    for (long word : bits) count += Long.bitCount(word);
+    return count;
   }
 
-  private void putIntoMap(int index, boolean flag) {
-    String hex = Integer.toHexString(index).toLowerCase(Locale.US);
-    while (hex.length() < 2) hex = '0' + hex;
-    supportMap.put(hex, flag);
+  @Override public String toString() {
+    StringBuilder sb = new StringBuilder();
+    // mode 01 PIDs are a single byte; anything past that in raw can't be named.
+    for (int pid = 1, last = Math.min(maxPid, MAX_PID); pid <= last; pid++) {
+      if (sb.length() != 0) sb.append("::");
+      sb.append("key='")
+          .append(Character.forDigit(pid >>> 4, 16))
+          .append(Character.forDigit(pid & 0xf, 16))
+          .append("',val='")
+          .append(reportedByVehicle(pid))
+          .append("'");
+    }
+    return sb.toString();
   }
 }
@@ -0,0 +1,23 @@
+package li.vin.my.deviceservice;
+
+/**
+ * One {@link IVinliServiceCallbackBatch#onBatch} delivery. The arrays are the ones unmarshalled
+ * by the binder and are never written after construction.
+ */
+/*package*/ final class ValueBatch {
+  // CHECKSTYLE.OFF: VisibilityModifier
+  /*package*/ final int[] ids;
+  /*package*/ final float[] values;
+  /*package*/ final long[] timestamps;
+  // CHECKSTYLE.ON: VisibilityModifier
+
+  /*package*/ ValueBatch(int[] ids, float[] values, long[] timestamps) {
+    this.ids = ids;
+    this.values = values;
+    this.timestamps = timestamps;
+  }
+
+  /*package*/ int size() {
+    return Math.min(ids.length, Math.min(values.length, timestamps.length));
+  }
+}
@@ -0,0 +1,40 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The primitive shape a {@link Param} crosses the binder as, derived from its service func.
+ * Registered params are classified once, by {@link Params}, as they're registered.
+ */
+/*package*/ enum ValueType {
+  FLOAT, INT, BOOL, STRING, DTC, OTHER;
+
+  /*package*/ static ValueType of(@NonNull Param<?> param) {
+    final ValueType type = Params.typeFor(param);
+    return type != null
+        ? type
+        : classify(param);
+  }
+
+  /** Classify {@code param} by building a service func for it, which allocates. */
+  /*package*/ static ValueType classify(@NonNull Param<?> param) {
+    DeviceServiceFunc<?> func = param.getServiceFunc("", "");
+    if (func instanceof DeviceServiceFuncFloat) return FLOAT;
+    if (func instanceof DeviceServiceFuncInt) return INT;
+    if (func instanceof DeviceServiceFuncBool) return BOOL;
+    if (func instanceof DeviceServiceFuncString) return STRING;
+    if (func instanceof DeviceServiceFuncDtc) return DTC;
+    return OTHER;
+  }
+
+  /*package*/ boolean isNumeric() {
+    return this == FLOAT || this == INT;
+  }
+
+  /** Box a float off the wire as this type's Observable value. */
+  /*package*/ Object box(float val) {
+    // not a ?: - that would unbox both sides and promote the Integer to a float.
+    if (this == INT) return Integer.valueOf(Math.round(val));
+    return Float.valueOf(val);
+  }
+}
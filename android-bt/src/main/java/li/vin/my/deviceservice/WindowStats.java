@@ -0,0 +1,83 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+import rx.Observable;
+import rx.Scheduler;
+
+/**
+ * Min, max, mean and last of a numeric param over one time window, as emitted by {@link
+ * DeviceConnection#observeWindowed}. Windows nothing arrived in are skipped.
+ */
+public final class WindowStats {
+  private final int count;
+  private final float min;
+  private final float max;
+  private final float mean;
+  private final float last;
+  private final long endMillis;
+
+  /*package*/ WindowStats(int count, float min, float max, float mean, float last,
+      long endMillis) {
+    this.count = count;
+    this.min = min;
+    this.max = max;
+    this.mean = mean;
+    this.last = last;
+    this.endMillis = endMillis;
+  }
+
+  /**
+   * Aggregate any numeric stream into windows of {@code interval}, timed on {@code scheduler}:
+   * {@code conn.observe(Params.RPM).compose(WindowStats.<Integer>over(100, MILLISECONDS,
+   * Schedulers.computation()))}. Values are folded into primitive accumulators as they arrive,
+   * so nothing downstream runs faster than once per window.
+   */
+  public static @NonNull <T extends Number> Observable.Transformer<T, WindowStats> over(
+      long interval, @NonNull final TimeUnit unit, @NonNull final Scheduler scheduler) {
+    if (interval <= 0) throw new IllegalArgumentException("interval must be > 0");
+    final long intervalNanos = unit.toNanos(interval);
+    return new Observable.Transformer<T, WindowStats>() {
+      @Override public Observable<WindowStats> call(Observable<T> values) {
+        return values.lift(new OperatorWindowStats<T>(intervalNanos, scheduler))
+            .onBackpressureLatest();
+      }
+    };
+  }
+
+  /** Values that arrived in the window. Always at least 1. */
+  public int count() {
+    return count;
+  }
+
+  public float min() {
+    return min;
+  }
+
+  public float max() {
+    return max;
+  }
+
+  public float mean() {
+    return mean;
+  }
+
+  /** The most recent value in the window. */
+  public float last() {
+    return last;
+  }
+
+  /** When the window closed, in the aggregating scheduler's time. */
+  public long endMillis() {
+    return endMillis;
+  }
+
+  @Override public String toString() {
+    return "WindowStats{count=" + count
+        + ", min=" + min
+        + ", max=" + max
+        + ", mean=" + mean
+        + ", last=" + last
+        + '}';
+  }
+}
@@ -0,0 +1,53 @@
+package li.vin.my.deviceservice;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AccelDecoderTest {
+  private static final float G = 9.807f;
+
+  private final AccelDecoder decoder = new AccelDecoder();
+
+  @Test public void decodesAsciiFrames() {
+    // x +1g, y -1g, z 0, collision.
+    assertTrue(decoder.decode("4000C000000001"));
+    assertEquals(G, decoder.xyz[0], 1e-4f);
+    assertEquals(-G, decoder.xyz[1], 1e-4f);
+    assertEquals(0f, decoder.xyz[2], 0f);
+    assertTrue(decoder.collision);
+
+    assertTrue(decoder.decode("00000000400000"));
+    assertEquals(G, decoder.xyz[2], 1e-4f);
+    assertFalse(decoder.collision);
+  }
+
+  @Test public void rejectsNullAndWrongLengths() {
+    assertFalse(decoder.decode((String) null));
+    assertFalse(decoder.decode(""));
+    assertFalse(decoder.decode("4000C00000000"));
+    assertFalse(decoder.decode("4000C0000000000"));
+  }
+
+  @Test public void rejectsBinaryFramesReadAsStrings() {
+    // 4 byte frames, as they'd reach us: mangled past 0x7f, cut short at a 0 byte.
+    assertFalse(decoder.decode("\uFFFD@\u00010"));
+    assertFalse(decoder.decode("@\u00010"));
+    // and a 14 character one with a mangled byte.
+    assertFalse(decoder.decode("4000C0000\uFFFD0000"));
+  }
+
+  @Test public void rejectsBadHex() {
+    assertFalse(decoder.decode("40G0C000000000"));
+  }
+
+  @Test public void decodesBinaryFramesFromBytes() {
+    assertTrue(decoder.decode(new byte[] {64, -64, 0, '1'}, 4));
+    assertEquals(G, decoder.xyz[0], 1e-4f);
+    assertEquals(-G, decoder.xyz[1], 1e-4f);
+    assertEquals(0f, decoder.xyz[2], 0f);
+    assertTrue(decoder.collision);
+  }
+}
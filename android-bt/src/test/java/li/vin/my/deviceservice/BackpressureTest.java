@@ -0,0 +1,71 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.Action0;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+
+public class BackpressureTest {
+  private final PublishSubject<Integer> source = PublishSubject.create();
+  private final AtomicInteger drops = new AtomicInteger();
+  private final Action0 onDrop = new Action0() {
+    @Override public void call() {
+      drops.incrementAndGet();
+    }
+  };
+  private final TestSubscriber<Integer> child = new TestSubscriber<>(0);
+
+  private void emit(int from, int to) {
+    for (int i = from; i <= to; i++) source.onNext(i);
+  }
+
+  @Test public void latestCountsEachOverwrittenValue() {
+    Backpressure.latest().apply(source, onDrop).subscribe(child);
+    emit(1, 5);
+    assertEquals(4, drops.get());
+    child.requestMore(1);
+    child.assertValues(5);
+
+    // a value taken straight away isn't dropped.
+    child.requestMore(1);
+    emit(6, 6);
+    child.assertValues(5, 6);
+    assertEquals(4, drops.get());
+  }
+
+  @Test public void dropCountsEverythingUnrequested() {
+    Backpressure.drop().apply(source, onDrop).subscribe(child);
+    emit(1, 3);
+    child.requestMore(1);
+    emit(4, 5);
+    child.assertValues(4);
+    assertEquals(4, drops.get());
+  }
+
+  @Test public void unboundedBufferNeverDrops() {
+    Backpressure.buffer().apply(source, onDrop).subscribe(child);
+    emit(1, 100);
+    child.requestMore(Long.MAX_VALUE);
+    assertEquals(100, child.getOnNextEvents().size());
+    assertEquals(0, drops.get());
+  }
+
+  @Test public void boundedErrorFailsOnOverflow() {
+    Backpressure.buffer(2, Backpressure.Overflow.ERROR).apply(source, onDrop).subscribe(child);
+    emit(1, 3);
+    assertEquals(1, drops.get());
+    child.requestMore(2);
+    child.assertError(MissingBackpressureException.class);
+  }
+
+  @Test public void countsNothingWithoutACallback() {
+    Backpressure.buffer(1, Backpressure.Overflow.DROP_OLDEST).apply(source).subscribe(child);
+    emit(1, 3);
+    child.requestMore(1);
+    child.assertValues(3);
+  }
+}
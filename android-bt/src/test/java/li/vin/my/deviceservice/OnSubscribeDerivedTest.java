@@ -0,0 +1,100 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OnSubscribeDerivedTest {
+  // rpm / speed, skipping a standstill.
+  private static final DerivedMetric RPM_PER_KPH =
+      new DerivedMetric("RPM_PER_KPH", Params.RPM, Params.SPEED_KPH) {
+        @Override protected float compute(@NonNull float[] inputs) {
+          return inputs[1] == 0
+              ? Float.NaN
+              : inputs[0] / inputs[1];
+        }
+      };
+
+  private final PublishSubject<Float> rpm = PublishSubject.create();
+  private final PublishSubject<Integer> speed = PublishSubject.create();
+  private final TestSubscriber<Float> child = new TestSubscriber<>();
+
+  private Subscription subscribe(DerivedMetric metric) {
+    return Observable.create(
+        new OnSubscribeDerived(metric, Arrays.<Observable<?>>asList(rpm, speed)))
+        .subscribe(child);
+  }
+
+  @Test public void emitsOnceEveryInputHasAValue() {
+    subscribe(RPM_PER_KPH);
+    rpm.onNext(2000f);
+    rpm.onNext(3000f);
+    child.assertNoValues();
+    speed.onNext(50);
+    child.assertValues(60f);
+  }
+
+  @Test public void recomputesWhenAnyInputChanges() {
+    subscribe(RPM_PER_KPH);
+    rpm.onNext(2000f);
+    speed.onNext(50);
+    speed.onNext(100);
+    rpm.onNext(1000f);
+    child.assertValues(40f, 20f, 10f);
+  }
+
+  @Test public void skipsNaN() {
+    subscribe(RPM_PER_KPH);
+    rpm.onNext(800f);
+    speed.onNext(0);
+    child.assertNoValues();
+    speed.onNext(8);
+    child.assertValues(100f);
+  }
+
+  @Test public void completesOnlyWhenEveryInputHas() {
+    subscribe(RPM_PER_KPH);
+    rpm.onCompleted();
+    child.assertNoTerminalEvent();
+    speed.onNext(1);
+    speed.onCompleted();
+    child.assertCompleted();
+  }
+
+  @Test public void errorsOnceAndStopsEmitting() {
+    subscribe(RPM_PER_KPH);
+    rpm.onNext(100f);
+    final RuntimeException error = new RuntimeException();
+    rpm.onError(error);
+    speed.onNext(1);
+    child.assertNoValues();
+    child.assertError(error);
+  }
+
+  @Test public void unsubscribingReleasesEveryInput() {
+    final Subscription sub = subscribe(RPM_PER_KPH);
+    sub.unsubscribe();
+    assertFalse(rpm.hasObservers());
+    assertFalse(speed.hasObservers());
+  }
+
+  @Test public void mpgFromSpeedAndAirflow() {
+    final PublishSubject<Integer> kph = PublishSubject.create();
+    final PublishSubject<Float> maf = PublishSubject.create();
+    Observable.create(new OnSubscribeDerived(DerivedMetrics.MPG,
+        Arrays.<Observable<?>>asList(kph, maf))).subscribe(child);
+    kph.onNext(100);
+    maf.onNext(0f);
+    child.assertNoValues();
+    maf.onNext(10f);
+    // the usual 7.107 * kph / maf.
+    assertEquals(71.07f, child.getOnNextEvents().get(0), 0.01f);
+  }
+}
@@ -0,0 +1,95 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OnSubscribeHarshEventsTest {
+  private static final long PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final float G = 9.807f;
+
+  private final HarshEventPolicy policy = HarshEventPolicy.of(2f)
+      .withWindows(5, 5)
+      .withBaseline(1, TimeUnit.SECONDS);
+  private final TestSubscriber<HarshEvent> child = new TestSubscriber<>();
+  private final OnSubscribeHarshEvents.Detector detector =
+      new OnSubscribeHarshEvents.Detector(policy, child);
+  private final float[] xyz = new float[3];
+  private long now;
+
+  // 100Hz samples of (x, g, 0) for the given time.
+  private void feed(float x, long millis) {
+    for (long end = now + TimeUnit.MILLISECONDS.toNanos(millis); now < end; now += PERIOD_NANOS) {
+      xyz[0] = x;
+      xyz[1] = G;
+      xyz[2] = 0;
+      detector.onSample(xyz, false, now);
+    }
+  }
+
+  private int eventsAfter(long nanos) {
+    int count = 0;
+    for (HarshEvent event : child.getOnNextEvents()) {
+      if (event.timestampNanos() > nanos) count++;
+    }
+    return count;
+  }
+
+  @Test public void steadySignalNeverTriggers() {
+    feed(0, 10000);
+    child.assertNoValues();
+  }
+
+  @Test public void shortBumpTriggersOnce() {
+    feed(0, 2000);
+    feed(3f, 20);
+    feed(0, 2000);
+    child.assertValueCount(1);
+    final HarshEvent event = child.getOnNextEvents().get(0);
+    assertEquals(3f, event.peak(), 1e-3f);
+    assertFalse(event.collision());
+    assertEquals(5, event.triggerIndex());
+    assertEquals(11, event.window().size());
+  }
+
+  @Test public void lastingOffsetStopsTriggeringOnceAbsorbed() {
+    feed(0, 2000);
+    final long step = now;
+    feed(3f, 60000);
+
+    assertTrue(eventsAfter(step) > 0);
+    // 3 m/s^2 decays under the 2 m/s^2 threshold after ln(1.5) of the slowed 4s time constant.
+    assertEquals(0, eventsAfter(step + TimeUnit.SECONDS.toNanos(2)));
+
+    // and the way back is a harsh event of its own, absorbed the same way.
+    final long back = now;
+    feed(0, 10000);
+    assertTrue(eventsAfter(back) > 0);
+    assertEquals(0, eventsAfter(back + TimeUnit.SECONDS.toNanos(2)));
+  }
+
+  @Test public void collisionAlwaysTriggers() {
+    feed(0, 1000);
+    xyz[0] = 0;
+    xyz[1] = G;
+    xyz[2] = 0;
+    detector.onSample(xyz, true, now);
+    now += PERIOD_NANOS;
+    feed(0, 100);
+    child.assertValueCount(1);
+    assertTrue(child.getOnNextEvents().get(0).collision());
+  }
+
+  @Test public void completionFlushesAPartialEvent() {
+    feed(0, 1000);
+    feed(3f, 10);
+    detector.onCompleted();
+    child.assertValueCount(1);
+    assertEquals(6, child.getOnNextEvents().get(0).window().size());
+    child.assertCompleted();
+  }
+}
@@ -0,0 +1,29 @@
+package li.vin.my.deviceservice;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class OpRecorderTest {
+  @Test public void knowsWhenTheLatestValueArrived() {
+    final OpRecorder recorder = new OpRecorder("test");
+    final String frame = new String("0102030405060A");
+    recorder.onReceived.call(frame);
+    assertTrue(recorder.arrivalOf(frame) >= 0);
+  }
+
+  @Test public void forgetsSupersededValues() {
+    final OpRecorder recorder = new OpRecorder("test");
+    final String first = new String("0102030405060A");
+    final String second = new String("0102030405060A");
+    recorder.onReceived.call(first);
+    recorder.onReceived.call(second);
+    // equal, but not the same frame.
+    assertTrue(recorder.arrivalOf(first) < 0);
+    assertTrue(recorder.arrivalOf(second) >= 0);
+  }
+
+  @Test public void knowsNothingBeforeTheFirstValue() {
+    assertTrue(new OpRecorder("test").arrivalOf("0102030405060A") < 0);
+  }
+}
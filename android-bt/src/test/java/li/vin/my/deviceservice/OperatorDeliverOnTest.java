@@ -0,0 +1,110 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import rx.functions.Action0;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+
+public class OperatorDeliverOnTest {
+  private final TestScheduler scheduler = new TestScheduler();
+  private final PublishSubject<Integer> source = PublishSubject.create();
+  private final AtomicInteger drops = new AtomicInteger();
+  private final Action0 onDrop = new Action0() {
+    @Override public void call() {
+      drops.incrementAndGet();
+    }
+  };
+
+  private void subscribe(Backpressure backpressure, TestSubscriber<Integer> child) {
+    backpressure.apply(source, onDrop)
+        .lift(new OperatorDeliverOn<Integer>(scheduler))
+        .subscribe(child);
+  }
+
+  private void emit(int from, int to) {
+    for (int i = from; i <= to; i++) source.onNext(i);
+  }
+
+  @Test public void latestSkipsWhatArrivesWhileTheSchedulerIsBusy() {
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    subscribe(Backpressure.latest(), child);
+    emit(1, 5);
+    child.assertNoValues();
+    scheduler.triggerActions();
+    // 1 was already on its way; 2 to 4 were stale before the scheduler got to them.
+    child.assertValues(1, 5);
+    assertEquals(3, drops.get());
+
+    emit(6, 8);
+    scheduler.triggerActions();
+    child.assertValues(1, 5, 6, 8);
+    assertEquals(4, drops.get());
+  }
+
+  @Test public void dropDiscardsWhatArrivesWhileTheSchedulerIsBusy() {
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    subscribe(Backpressure.drop(), child);
+    emit(1, 5);
+    scheduler.triggerActions();
+    child.assertValues(1);
+    assertEquals(4, drops.get());
+  }
+
+  @Test public void bufferDeliversEverything() {
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    subscribe(Backpressure.buffer(), child);
+    emit(1, 100);
+    scheduler.triggerActions();
+    assertEquals(100, child.getOnNextEvents().size());
+    assertEquals(0, drops.get());
+  }
+
+  @Test public void honoursTheChildsRequests() {
+    final TestSubscriber<Integer> child = new TestSubscriber<>(0);
+    subscribe(Backpressure.buffer(), child);
+    emit(1, 3);
+    scheduler.triggerActions();
+    child.assertNoValues();
+    child.requestMore(2);
+    scheduler.triggerActions();
+    child.assertValues(1, 2);
+    child.requestMore(1);
+    scheduler.triggerActions();
+    child.assertValues(1, 2, 3);
+  }
+
+  @Test public void terminatesAfterTheLastValue() {
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    subscribe(Backpressure.buffer(), child);
+    emit(1, 2);
+    source.onCompleted();
+    child.assertNoTerminalEvent();
+    scheduler.triggerActions();
+    child.assertValues(1, 2);
+    child.assertCompleted();
+  }
+
+  @Test public void errorsOnTheScheduler() {
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    subscribe(Backpressure.latest(), child);
+    final RuntimeException error = new RuntimeException();
+    source.onError(error);
+    child.assertNoTerminalEvent();
+    scheduler.triggerActions();
+    child.assertError(error);
+  }
+
+  @Test public void unsubscribingReleasesTheSource() {
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    subscribe(Backpressure.latest(), child);
+    child.unsubscribe();
+    emit(1, 2);
+    scheduler.triggerActions();
+    child.assertNoValues();
+    assertEquals(false, source.hasObservers());
+  }
+}
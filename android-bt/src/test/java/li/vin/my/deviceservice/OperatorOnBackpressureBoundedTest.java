@@ -0,0 +1,97 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import rx.functions.Action0;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+
+public class OperatorOnBackpressureBoundedTest {
+  private final PublishSubject<Integer> source = PublishSubject.create();
+  private final AtomicInteger drops = new AtomicInteger();
+  private final Action0 onDrop = new Action0() {
+    @Override public void call() {
+      drops.incrementAndGet();
+    }
+  };
+  private final TestSubscriber<Integer> child = new TestSubscriber<>(0);
+
+  private void subscribe(int capacity, boolean dropOldest) {
+    source.lift(new OperatorOnBackpressureBounded<Integer>(capacity, dropOldest, onDrop))
+        .subscribe(child);
+  }
+
+  private void emit(int from, int to) {
+    for (int i = from; i <= to; i++) source.onNext(i);
+  }
+
+  @Test public void dropOldestKeepsTheNewest() {
+    subscribe(3, true);
+    emit(1, 5);
+    child.assertNoValues();
+    assertEquals(2, drops.get());
+
+    child.requestMore(10);
+    child.assertValues(3, 4, 5);
+  }
+
+  @Test public void dropLatestKeepsTheOldest() {
+    subscribe(3, false);
+    emit(1, 5);
+    assertEquals(2, drops.get());
+
+    child.requestMore(10);
+    child.assertValues(1, 2, 3);
+  }
+
+  @Test public void drainsOnlyWhatsRequested() {
+    subscribe(4, true);
+    emit(1, 4);
+    child.requestMore(1);
+    child.assertValues(1);
+    child.requestMore(2);
+    child.assertValues(1, 2, 3);
+
+    // outstanding requests pass values straight through.
+    child.requestMore(3);
+    child.assertValues(1, 2, 3, 4);
+    emit(5, 6);
+    child.assertValues(1, 2, 3, 4, 5, 6);
+    assertEquals(0, drops.get());
+  }
+
+  @Test public void completesOnlyOnceDrained() {
+    subscribe(2, true);
+    emit(1, 2);
+    source.onCompleted();
+    child.assertNoTerminalEvent();
+
+    child.requestMore(1);
+    child.assertNoTerminalEvent();
+    child.requestMore(1);
+    child.assertValues(1, 2);
+    child.assertCompleted();
+  }
+
+  @Test public void errorsOnlyOnceDrained() {
+    subscribe(2, true);
+    emit(1, 3);
+    final RuntimeException error = new RuntimeException();
+    source.onError(error);
+    child.assertNoTerminalEvent();
+
+    child.requestMore(2);
+    child.assertValues(2, 3);
+    child.assertError(error);
+  }
+
+  @Test public void passesNulls() {
+    subscribe(2, true);
+    source.onNext(null);
+    child.requestMore(1);
+    assertEquals(1, child.getOnNextEvents().size());
+    assertEquals(null, child.getOnNextEvents().get(0));
+  }
+}
@@ -0,0 +1,138 @@
+package li.vin.my.deviceservice;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import rx.functions.Func0;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OperatorSnapshotTest {
+  private static final int RPM = 0;
+  private static final int SPEED = 1;
+
+  private final BatchLayout layout = BatchLayout.of(Arrays.asList(Params.RPM, Params.SPEED_KPH));
+  private final TestScheduler scheduler = new TestScheduler();
+  private final Func0<Long> clock = new Func0<Long>() {
+    @Override public Long call() {
+      return nanos(scheduler.now());
+    }
+  };
+  private final PublishSubject<ParamUpdate> source = PublishSubject.create();
+  private final TestSubscriber<ParamSnapshot> child = new TestSubscriber<>();
+
+  private static long nanos(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  private void subscribe(SnapshotPolicy policy) {
+    source.lift(new OperatorSnapshot(layout, policy, scheduler, clock)).subscribe(child);
+  }
+
+  // one value for slot, read now.
+  private void update(int slot, float value) {
+    update(slot, value, nanos(scheduler.now()));
+  }
+
+  private void update(int slot, float value, long timestampNanos) {
+    source.onNext(new ParamUpdate(layout, new ValueBatch(new int[] {slot}, new float[] {value},
+        new long[] {timestampNanos})));
+  }
+
+  private ParamSnapshot last() {
+    return child.getOnNextEvents().get(child.getOnNextEvents().size() - 1);
+  }
+
+  private void advance(long millis) {
+    scheduler.advanceTimeBy(millis, TimeUnit.MILLISECONDS);
+  }
+
+  @Test public void onChangeEmitsTheLatestOfEverySlot() {
+    subscribe(SnapshotPolicy.onChange());
+    update(RPM, 800);
+    child.assertValueCount(1);
+    assertTrue(last().has(RPM));
+    assertFalse(last().has(SPEED));
+    assertTrue(Float.isNaN(last().floatValue(SPEED)));
+
+    advance(10);
+    update(SPEED, 40);
+    child.assertValueCount(2);
+    assertEquals(800, last().floatValue(RPM), 0f);
+    assertEquals(40, last().floatValue(SPEED), 0f);
+  }
+
+  @Test public void olderValuesDoNotReplaceNewerOnes() {
+    subscribe(SnapshotPolicy.onChange());
+    advance(100);
+    update(RPM, 900);
+    update(RPM, 700, nanos(50));
+    assertEquals(900, last().floatValue(RPM), 0f);
+    assertEquals(nanos(100), last().timestampNanos(RPM));
+  }
+
+  @Test public void atRateEmitsOnTheSchedulerEvenWithoutChanges() {
+    subscribe(SnapshotPolicy.atRate(100, TimeUnit.MILLISECONDS));
+    advance(100);
+    // nothing to show yet.
+    child.assertNoValues();
+    update(RPM, 800);
+    child.assertNoValues();
+    advance(300);
+    child.assertValueCount(3);
+    assertEquals(800, last().floatValue(RPM), 0f);
+  }
+
+  @Test public void valuesPastMaxAgeAreMissing() {
+    subscribe(SnapshotPolicy.atRate(100, TimeUnit.MILLISECONDS)
+        .withMaxAge(150, TimeUnit.MILLISECONDS));
+    update(RPM, 800);
+    advance(50);
+    update(SPEED, 40);
+    advance(50);
+    assertTrue(last().has(RPM));
+    assertTrue(last().has(SPEED));
+
+    // at 200ms rpm is 200ms old, speed 150ms.
+    advance(100);
+    child.assertValueCount(2);
+    assertFalse(last().has(RPM));
+    assertTrue(Float.isNaN(last().floatValue(RPM)));
+    assertEquals(40, last().floatValue(SPEED), 0f);
+
+    // once everything's stale, nothing is emitted.
+    advance(100);
+    child.assertValueCount(2);
+  }
+
+  @Test public void requireAllWaitsForEverySlotToBeFresh() {
+    subscribe(SnapshotPolicy.onChange().withMaxAge(100, TimeUnit.MILLISECONDS).requireAll());
+    update(RPM, 800);
+    child.assertNoValues();
+    advance(50);
+    update(SPEED, 40);
+    child.assertValueCount(1);
+
+    // rpm has gone stale by the time speed changes again.
+    advance(60);
+    update(SPEED, 41);
+    child.assertValueCount(1);
+    update(RPM, 850);
+    child.assertValueCount(2);
+    assertEquals(850, last().floatValue(RPM), 0f);
+    assertEquals(41, last().floatValue(SPEED), 0f);
+  }
+
+  @Test public void atRateTerminatesOnTheScheduler() {
+    subscribe(SnapshotPolicy.atRate(100, TimeUnit.MILLISECONDS));
+    source.onCompleted();
+    child.assertNoTerminalEvent();
+    scheduler.triggerActions();
+    child.assertCompleted();
+  }
+}
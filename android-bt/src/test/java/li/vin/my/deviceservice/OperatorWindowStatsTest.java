@@ -0,0 +1,95 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OperatorWindowStatsTest {
+  private final TestScheduler scheduler = new TestScheduler();
+  private final PublishSubject<Float> source = PublishSubject.create();
+  private final TestSubscriber<WindowStats> child = new TestSubscriber<>();
+
+  private Subscription subscribe() {
+    return source.compose(WindowStats.<Float>over(100, TimeUnit.MILLISECONDS, scheduler))
+        .subscribe(child);
+  }
+
+  private WindowStats window(int i) {
+    return child.getOnNextEvents().get(i);
+  }
+
+  @Test public void foldsEachIntervalIntoOneWindow() {
+    subscribe();
+    source.onNext(3f);
+    source.onNext(1f);
+    source.onNext(5f);
+    source.onNext(2f);
+    scheduler.advanceTimeBy(99, TimeUnit.MILLISECONDS);
+    child.assertNoValues();
+    scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+    child.assertValueCount(1);
+    assertEquals(4, window(0).count());
+    assertEquals(1f, window(0).min(), 0f);
+    assertEquals(5f, window(0).max(), 0f);
+    assertEquals(2.75f, window(0).mean(), 0f);
+    assertEquals(2f, window(0).last(), 0f);
+    assertEquals(100, window(0).endMillis());
+
+    // the next window starts afresh.
+    source.onNext(-1f);
+    scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+    child.assertValueCount(2);
+    assertEquals(1, window(1).count());
+    assertEquals(-1f, window(1).min(), 0f);
+    assertEquals(-1f, window(1).max(), 0f);
+    assertEquals(200, window(1).endMillis());
+  }
+
+  @Test public void skipsEmptyWindowsAndNulls() {
+    subscribe();
+    source.onNext(null);
+    scheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS);
+    child.assertNoValues();
+    source.onNext(7f);
+    scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+    child.assertValueCount(1);
+    assertEquals(400, window(0).endMillis());
+  }
+
+  @Test public void completionFlushesThePartialWindow() {
+    subscribe();
+    source.onNext(4f);
+    source.onCompleted();
+    child.assertNoTerminalEvent();
+    scheduler.triggerActions();
+
+    child.assertValueCount(1);
+    assertEquals(4f, window(0).last(), 0f);
+    child.assertCompleted();
+  }
+
+  @Test public void errorsOnTheScheduler() {
+    subscribe();
+    final RuntimeException error = new RuntimeException();
+    source.onError(error);
+    child.assertNoTerminalEvent();
+    scheduler.triggerActions();
+    child.assertError(error);
+  }
+
+  @Test public void unsubscribingStopsTheTimer() {
+    final Subscription sub = subscribe();
+    source.onNext(1f);
+    sub.unsubscribe();
+    assertFalse(source.hasObservers());
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    child.assertNoValues();
+  }
+}
@@ -0,0 +1,40 @@
+package li.vin.my.deviceservice;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ParamPlannerTest {
+  private static final SupportedPids ALL = new SupportedPids("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF");
+  private static final SupportedPids NONE = new SupportedPids("00000000000000000000000000000000");
+
+  @Test public void keepsPidsOnTheKnownUnsupportedListTheVehicleReports() {
+    // 0x0c and 0x24 are masked by SupportedPids.supports, but the SDK reads both.
+    assertFalse(ALL.supports(0x0c));
+    final List<Param<?>> desired =
+        Arrays.<Param<?>>asList(Params.RPM, Params.SPEED_KPH, Params.O2S_1A_VOLTAGE);
+    assertEquals(desired, ParamPlanner.plan(ALL, desired));
+  }
+
+  @Test public void dropsPidsTheVehicleDoesNotReport() {
+    // only PID 0x0d (speed): group 0, bit 13 from the top.
+    final SupportedPids speedOnly = new SupportedPids("00080000");
+    assertEquals(Collections.<Param<?>>singletonList(Params.SPEED_KPH),
+        ParamPlanner.plan(speedOnly, Arrays.<Param<?>>asList(Params.RPM, Params.SPEED_KPH)));
+  }
+
+  @Test public void alwaysKeepsParamsThatAreNotPids() {
+    final List<Param<?>> desired = Arrays.<Param<?>>asList(Params.ACCEL_X, Params.COLLISION);
+    assertEquals(desired, ParamPlanner.plan(NONE, desired));
+  }
+
+  @Test public void dedupesInOrder() {
+    assertEquals(Arrays.<Param<?>>asList(Params.SPEED_KPH, Params.RPM),
+        ParamPlanner.plan(ALL, Arrays.<Param<?>>asList(
+            Params.SPEED_KPH, Params.RPM, Params.SPEED_KPH)));
+  }
+}
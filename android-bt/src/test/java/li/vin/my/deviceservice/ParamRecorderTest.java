@@ -0,0 +1,148 @@
+package li.vin.my.deviceservice;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParamRecorderTest {
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private static List<ParamRecorder.Sample> readAll(File dir) {
+    return ParamRecorder.read(dir).toList().toBlocking().single();
+  }
+
+  private static void assertSample(ParamRecorder.Sample sample, int paramId, long ts,
+      float value) {
+    assertEquals(paramId, sample.paramId());
+    assertEquals(ts, sample.timestampNanos());
+    assertEquals(value, sample.value(), 0f);
+  }
+
+  @Test public void recordsThroughTheSharedOpOnTheWriterScheduler() throws IOException {
+    final File capture = tmp.newFile();
+    final FrameCapture.Writer writer = FrameCapture.Writer.create(capture);
+    for (int i = 1; i <= 3; i++) {
+      writer.write(i * 1000000L, Uuids.STREAM,
+          String.format("410D%02X\r", i).getBytes("US-ASCII"));
+    }
+    writer.close();
+    final ReplayDeviceConnection conn = ReplayDeviceConnection.create(capture,
+        ReplayDeviceConnection.MAX_SPEED, Schedulers.immediate());
+    conn.setDeliveryScheduler(Schedulers.immediate());
+
+    final File dir = tmp.newFolder();
+    final ParamRecorder recorder = ParamRecorder.open(dir, 1 << 20, 1 << 20);
+    final TestScheduler io = new TestScheduler();
+    recorder.record(conn, Collections.singletonList(Params.SPEED_KPH), io);
+    recorder.flush();
+    // delivered, but nothing written until the writer runs.
+    assertTrue(readAll(dir).isEmpty());
+    io.triggerActions();
+    recorder.close();
+
+    final List<ParamRecorder.Sample> samples = readAll(dir);
+    assertEquals(3, samples.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Params.idFor(Params.SPEED_KPH), samples.get(i).paramId());
+      assertEquals(i + 1, samples.get(i).value(), 0f);
+    }
+  }
+
+  @Test public void roundTripsMultiByteVarintsAndNegativeDeltas() throws IOException {
+    final File dir = tmp.newFolder();
+    final ParamRecorder recorder = ParamRecorder.open(dir, 1 << 20, 1 << 20);
+    recorder.append(1, 1000L, 1.5f);
+    // ids past one varint byte, and deltas of every sign and width.
+    recorder.append(300, 1001L, -2f);
+    recorder.append(70000, 999L, Float.MAX_VALUE);
+    recorder.append(0, Long.MAX_VALUE / 2, 0f);
+    recorder.append(Integer.MAX_VALUE, -5L, Float.NaN);
+    recorder.close();
+
+    final List<ParamRecorder.Sample> samples = readAll(dir);
+    assertEquals(5, samples.size());
+    assertSample(samples.get(0), 1, 1000L, 1.5f);
+    assertSample(samples.get(1), 300, 1001L, -2f);
+    assertSample(samples.get(2), 70000, 999L, Float.MAX_VALUE);
+    assertSample(samples.get(3), 0, Long.MAX_VALUE / 2, 0f);
+    assertEquals(Integer.MAX_VALUE, samples.get(4).paramId());
+    assertEquals(-5L, samples.get(4).timestampNanos());
+    assertTrue(Float.isNaN(samples.get(4).value()));
+  }
+
+  @Test public void rollsOverSegmentsAndReadsThemInOrder() throws IOException {
+    final File dir = tmp.newFolder();
+    final ParamRecorder recorder = ParamRecorder.open(dir, 64, 1 << 20);
+    for (int i = 0; i < 100; i++) recorder.append(i % 3, i * 1000L, i);
+    recorder.close();
+
+    assertTrue(dir.list().length > 10);
+    final List<ParamRecorder.Sample> samples = readAll(dir);
+    assertEquals(100, samples.size());
+    for (int i = 0; i < 100; i++) assertSample(samples.get(i), i % 3, i * 1000L, i);
+  }
+
+  @Test public void deletesTheOldestSegmentsPastTheCap() throws IOException {
+    final File dir = tmp.newFolder();
+    final ParamRecorder recorder = ParamRecorder.open(dir, 64, 256);
+    for (int i = 0; i < 100; i++) recorder.append(1, i * 1000L, i);
+    recorder.close();
+
+    long total = 0;
+    for (File f : dir.listFiles()) total += f.length();
+    assertTrue("total " + total, total <= 256);
+    // what's left is the tail of the recording.
+    final List<ParamRecorder.Sample> samples = readAll(dir);
+    assertTrue(samples.size() < 100);
+    final int first = 100 - samples.size();
+    for (int i = 0; i < samples.size(); i++) {
+      assertSample(samples.get(i), 1, (first + i) * 1000L, first + i);
+    }
+  }
+
+  @Test public void reopeningAppendsNewSegmentsAfterExistingOnes() throws IOException {
+    final File dir = tmp.newFolder();
+    ParamRecorder recorder = ParamRecorder.open(dir, 1 << 20, 4 << 20);
+    recorder.append(1, 10L, 1f);
+    recorder.close();
+    recorder = ParamRecorder.open(dir, 1 << 20, 4 << 20);
+    recorder.append(2, 20L, 2f);
+    recorder.close();
+
+    assertEquals(2, dir.list().length);
+    final List<ParamRecorder.Sample> samples = readAll(dir);
+    assertEquals(2, samples.size());
+    assertSample(samples.get(0), 1, 10L, 1f);
+    assertSample(samples.get(1), 2, 20L, 2f);
+  }
+
+  @Test public void endsATruncatedSegmentAtItsLastCompleteRecord() throws IOException {
+    final File dir = tmp.newFolder();
+    final ParamRecorder recorder = ParamRecorder.open(dir, 1 << 20, 1 << 20);
+    recorder.append(1, 10L, 1f);
+    recorder.append(1, 20L, 2f);
+    recorder.close();
+
+    final File segment = dir.listFiles()[0];
+    final RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try {
+      file.setLength(file.length() - 2);
+    } finally {
+      file.close();
+    }
+
+    final List<ParamRecorder.Sample> samples = readAll(dir);
+    assertEquals(1, samples.size());
+    assertSample(samples.get(0), 1, 10L, 1f);
+  }
+}
@@ -0,0 +1,61 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReconnectTrackerTest {
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  // opens after 3 disconnects within 1s, for 5s.
+  private final RetryPolicy policy = RetryPolicy.immediate()
+      .withCircuitBreaker(3, 1, 5, TimeUnit.SECONDS);
+  private final ReconnectTracker tracker = new ReconnectTracker();
+
+  @Test public void breakerOpensOnRepeatedDisconnectsAndClosesAfterOpenFor() {
+    tracker.onDisconnected(0, policy);
+    tracker.onDisconnected(400 * MS, policy);
+    assertFalse(tracker.isOpen(400 * MS));
+    tracker.onDisconnected(800 * MS, policy);
+    assertTrue(tracker.isOpen(800 * MS));
+    assertTrue(tracker.isOpen(5799 * MS));
+    assertFalse(tracker.isOpen(5800 * MS));
+  }
+
+  @Test public void disconnectsOutsideTheWindowDoNotCount() {
+    tracker.onDisconnected(0, policy);
+    tracker.onDisconnected(600 * MS, policy);
+    tracker.onDisconnected(1200 * MS, policy);
+    assertFalse(tracker.isOpen(1200 * MS));
+    tracker.onDisconnected(1500 * MS, policy);
+    assertTrue(tracker.isOpen(1500 * MS));
+  }
+
+  @Test public void neverOpensWithoutABreaker() {
+    for (int i = 0; i < 100; i++) tracker.onDisconnected(i * MS, RetryPolicy.immediate());
+    assertFalse(tracker.isOpen(100 * MS));
+  }
+
+  @Test public void measuresFromFirstDisconnectToReconnect() {
+    tracker.onDisconnected(0, policy);
+    tracker.onDisconnected(50 * MS, policy);
+    tracker.onConnected(100 * MS);
+    tracker.onDisconnected(2000 * MS, policy);
+    tracker.onConnected(2300 * MS);
+    tracker.onGaveUp();
+    // a stray connect with no disconnect outstanding isn't a reconnect.
+    tracker.onConnected(3000 * MS);
+
+    final ReconnectStats stats = tracker.snapshot(3000 * MS);
+    assertEquals(3, stats.disconnects());
+    assertEquals(2, stats.reconnects());
+    assertEquals(1, stats.gaveUp());
+    assertEquals(300 * MS, stats.lastLatencyNanos());
+    assertEquals(200 * MS, stats.meanLatencyNanos());
+    assertEquals(300 * MS, stats.maxLatencyNanos());
+    assertFalse(stats.circuitOpen());
+  }
+}
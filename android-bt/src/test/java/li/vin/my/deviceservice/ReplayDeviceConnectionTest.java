@@ -0,0 +1,72 @@
+package li.vin.my.deviceservice;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+
+public class ReplayDeviceConnectionTest {
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  // speed frames of 1 to count kph, one ms apart.
+  private File speedCapture(int count) throws IOException {
+    final File file = tmp.newFile();
+    final FrameCapture.Writer writer = FrameCapture.Writer.create(file);
+    try {
+      for (int i = 1; i <= count; i++) {
+        writer.write(i * 1000000L, Uuids.STREAM,
+            String.format("410D%02X\r", i).getBytes("US-ASCII"));
+      }
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  @Test public void latestSkipsStaleValuesOnABusyDeliveryScheduler() throws IOException {
+    final ReplayDeviceConnection conn = ReplayDeviceConnection.create(speedCapture(5),
+        ReplayDeviceConnection.MAX_SPEED, Schedulers.immediate());
+    final TestScheduler delivery = new TestScheduler();
+    conn.setDeliveryScheduler(delivery);
+
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    conn.observe(Params.SPEED_KPH).subscribe(child);
+    // the whole capture has played before the delivery scheduler runs.
+    child.assertNoValues();
+    delivery.triggerActions();
+    child.assertValues(1, 5);
+    child.assertCompleted();
+  }
+
+  @Test public void bufferDeliversEveryValueOnTheDeliveryScheduler() throws IOException {
+    final ReplayDeviceConnection conn = ReplayDeviceConnection.create(speedCapture(5),
+        ReplayDeviceConnection.MAX_SPEED, Schedulers.immediate());
+    final TestScheduler delivery = new TestScheduler();
+    conn.setDeliveryScheduler(delivery);
+
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    conn.observe(Params.SPEED_KPH, Backpressure.buffer()).subscribe(child);
+    delivery.triggerActions();
+    child.assertValues(1, 2, 3, 4, 5);
+    child.assertCompleted();
+  }
+
+  @Test public void multiplexedParamsArriveOnTheDeliveryScheduler() throws IOException {
+    final ReplayDeviceConnection conn = ReplayDeviceConnection.create(speedCapture(3),
+        ReplayDeviceConnection.MAX_SPEED, Schedulers.immediate());
+    final TestScheduler delivery = new TestScheduler();
+    conn.setDeliveryScheduler(delivery);
+
+    final TestSubscriber<Integer> child = new TestSubscriber<>();
+    conn.observeMultiplexed(Params.SPEED_KPH).subscribe(child);
+    child.assertNoValues();
+    delivery.triggerActions();
+    // conflated per param, past the demux.
+    child.assertValues(1, 3);
+    child.assertCompleted();
+  }
+}
@@ -0,0 +1,60 @@
+package li.vin.my.deviceservice;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+  private final Random random = new Random(42);
+
+  @Test public void immediateRetriesStraightAwayForever() {
+    final RetryPolicy policy = RetryPolicy.immediate();
+    assertEquals(0, policy.delayMs(1, random));
+    assertEquals(0, policy.delayMs(Integer.MAX_VALUE, random));
+  }
+
+  @Test public void backoffDoublesUpToTheCap() {
+    final RetryPolicy policy = RetryPolicy.exponentialBackoff(100, 1000, TimeUnit.MILLISECONDS);
+    assertEquals(100, policy.delayMs(1, random));
+    assertEquals(200, policy.delayMs(2, random));
+    assertEquals(400, policy.delayMs(3, random));
+    assertEquals(800, policy.delayMs(4, random));
+    assertEquals(1000, policy.delayMs(5, random));
+    assertEquals(1000, policy.delayMs(500, random));
+  }
+
+  @Test public void backoffDoesNotOverflow() {
+    final RetryPolicy policy =
+        RetryPolicy.exponentialBackoff(3, Long.MAX_VALUE / 1000, TimeUnit.MILLISECONDS);
+    assertEquals(Long.MAX_VALUE / 1000, policy.delayMs(200, random));
+  }
+
+  @Test public void givesUpAfterMaxAttempts() {
+    final RetryPolicy policy = RetryPolicy.exponentialBackoff(10, 100, TimeUnit.MILLISECONDS)
+        .withMaxAttempts(3);
+    assertEquals(40, policy.delayMs(3, random));
+    assertEquals(-1, policy.delayMs(4, random));
+  }
+
+  @Test public void jitterStaysWithinItsSpread() {
+    final RetryPolicy policy = RetryPolicy.exponentialBackoff(1000, 1000, TimeUnit.MILLISECONDS)
+        .withJitter(0.25f);
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < 1000; i++) {
+      final long delay = policy.delayMs(1, random);
+      min = Math.min(min, delay);
+      max = Math.max(max, delay);
+    }
+    assertTrue("min " + min, min >= 750 && min < 800);
+    assertTrue("max " + max, max <= 1250 && max > 1200);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsMaxDelayBelowInitial() {
+    RetryPolicy.exponentialBackoff(10, 5, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,127 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Func0;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamDemuxTest {
+  private final PublishSubject<String> frames = PublishSubject.create();
+  private final StreamDemux demux = new StreamDemux(frames);
+
+  @Test public void routesFramesByPid() {
+    final TestSubscriber<Integer> speed = new TestSubscriber<>();
+    final TestSubscriber<Float> coolant = new TestSubscriber<>();
+    demux.observe(Params.SPEED_KPH).subscribe(speed);
+    demux.observe(Params.COOLANT_TEMP_C).subscribe(coolant);
+
+    frames.onNext("410D3C");
+    frames.onNext("41057B");
+    frames.onNext("410D3D");
+    // not a mode 01 response, and a PID nobody observes.
+    frames.onNext("P0");
+    frames.onNext("410C1AF8");
+
+    speed.assertValues(60, 61);
+    coolant.assertValues(83f);
+  }
+
+  @Test public void servesParamsSharingAPidFromOneFrame() {
+    final TestSubscriber<Float> celsius = new TestSubscriber<>();
+    final TestSubscriber<Float> fahrenheit = new TestSubscriber<>();
+    demux.observe(Params.COOLANT_TEMP_C).subscribe(celsius);
+    demux.observe(Params.COOLANT_TEMP_F).subscribe(fahrenheit);
+
+    frames.onNext("41057B");
+    celsius.assertValues(83f);
+    assertEquals(181.4f, fahrenheit.getOnNextEvents().get(0), 1e-3f);
+  }
+
+  @Test public void derivesBothHalvesOfAnO2sFrameFromOneParse() {
+    final TestSubscriber<Float> ratio = new TestSubscriber<>();
+    final TestSubscriber<Float> voltage = new TestSubscriber<>();
+    demux.observe(Params.O2S_1A_EQUIVALENCE_RATIO).subscribe(ratio);
+    demux.observe(Params.O2S_1A_VOLTAGE).subscribe(voltage);
+
+    frames.onNext("412480006666");
+    assertEquals(0x8000 * 2 / 65535f, ratio.getOnNextEvents().get(0), 1e-6f);
+    assertEquals(0x6666 * 8 / 65535f, voltage.getOnNextEvents().get(0), 1e-6f);
+  }
+
+  @Test public void readsRuntimeFromItsDataBytes() {
+    final TestSubscriber<Integer> runtime = new TestSubscriber<>();
+    demux.observe(Params.RUNTIME_SINCE_ENGINE_START).subscribe(runtime);
+    frames.onNext("411F0102");
+    runtime.assertValues(0x0102);
+  }
+
+  @Test public void dropsUndecodableFramesForEveryRoute() {
+    final TestSubscriber<Float> celsius = new TestSubscriber<>();
+    final TestSubscriber<Float> fahrenheit = new TestSubscriber<>();
+    demux.observe(Params.COOLANT_TEMP_C).subscribe(celsius);
+    demux.observe(Params.COOLANT_TEMP_F).subscribe(fahrenheit);
+
+    frames.onNext("4105ZZ");
+    frames.onNext("41057B");
+    celsius.assertValues(83f);
+    assertEquals(1, fahrenheit.getOnNextEvents().size());
+    celsius.assertNoErrors();
+    fahrenheit.assertNoErrors();
+  }
+
+  @Test public void resubscribesAfterTheRawStreamEndsDuringSubscribe() {
+    final AtomicInteger subscribes = new AtomicInteger();
+    final StreamDemux ended = new StreamDemux(Observable.defer(new Func0<Observable<String>>() {
+      @Override public Observable<String> call() {
+        return subscribes.getAndIncrement() == 0
+            ? Observable.<String>empty()
+            : frames;
+      }
+    }));
+    final TestSubscriber<Integer> first = new TestSubscriber<>();
+    ended.observe(Params.SPEED_KPH).subscribe(first);
+    first.assertCompleted();
+
+    final TestSubscriber<Integer> second = new TestSubscriber<>();
+    final Subscription sub = ended.observe(Params.SPEED_KPH).subscribe(second);
+    frames.onNext("410D3C");
+    second.assertValues(60);
+    sub.unsubscribe();
+    assertFalse(frames.hasObservers());
+  }
+
+  @Test public void holdsTheRawStreamOnlyWhileRoutesAreOpen() {
+    assertFalse(frames.hasObservers());
+    final Subscription speed = demux.observe(Params.SPEED_KPH).subscribe(new TestSubscriber<>());
+    final Subscription coolant =
+        demux.observe(Params.COOLANT_TEMP_C).subscribe(new TestSubscriber<>());
+    assertTrue(frames.hasObservers());
+    speed.unsubscribe();
+    assertTrue(frames.hasObservers());
+    coolant.unsubscribe();
+    assertFalse(frames.hasObservers());
+  }
+
+  @Test public void endsEveryRouteWithTheRawStream() {
+    final TestSubscriber<Integer> speed = new TestSubscriber<>();
+    final TestSubscriber<Float> coolant = new TestSubscriber<>();
+    demux.observe(Params.SPEED_KPH).subscribe(speed);
+    demux.observe(Params.COOLANT_TEMP_C).subscribe(coolant);
+    frames.onCompleted();
+    speed.assertCompleted();
+    coolant.assertCompleted();
+  }
+
+  @Test public void rejectsParamsOffTheStream() {
+    final TestSubscriber<Float> rpm = new TestSubscriber<>();
+    demux.observe(Params.RPM).subscribe(rpm);
+    rpm.assertError(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,29 @@
+package li.vin.my.deviceservice;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ValueTypeTest {
+  @Test public void classifiesRegisteredParamsAtRegistration() {
+    assertSame(ValueType.FLOAT, Params.typeFor(Params.RPM));
+    assertSame(ValueType.INT, Params.typeFor(Params.SPEED_KPH));
+    assertSame(ValueType.STRING, Params.typeFor(Params.VIN));
+    assertSame(ValueType.INT, ValueType.of(Params.SPEED_KPH));
+  }
+
+  @Test public void agreesWithTheServiceFuncForEveryRegisteredParam() {
+    for (int id = 0; id < Params.registeredCount(); id++) {
+      final Param<?> param = Params.paramFor(id);
+      assertEquals(Params.nameFor(param), ValueType.classify(param), ValueType.of(param));
+    }
+  }
+
+  @Test public void classifiesUnregisteredParamsOnDemand() {
+    final Param<String> pid = Params.getPidParam("0C");
+    assertNull(Params.typeFor(pid));
+    assertSame(ValueType.classify(pid), ValueType.of(pid));
+  }
+}
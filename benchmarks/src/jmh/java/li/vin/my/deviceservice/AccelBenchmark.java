@@ -0,0 +1,49 @@
+package li.vin.my.deviceservice;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link ParamAccel#accelConvert} against {@link AccelDecoder}, which decodes every axis and the
+ * collision flag at once, for both accelerometer frame formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccelBenchmark {
+  /** Frame length: 14 hex chars (two bytes per axis) or 4 raw bytes (one byte per axis). */
+  @Param({ "14", "4" })
+  public int format;
+
+  private byte[] frame;
+  private final AccelDecoder decoder = new AccelDecoder();
+
+  @Setup public void setUp() {
+    frame = format == 14
+        ? "0040FFC0400000".getBytes(Charset.forName("ASCII"))
+        : new byte[] { 1, -1, 64, 0 };
+  }
+
+  @Benchmark public float accelConvertX() {
+    return ParamAccel.accelConvert(frame, 0);
+  }
+
+  @Benchmark public float accelConvertXyz() {
+    return ParamAccel.accelConvert(frame, 0)
+        + ParamAccel.accelConvert(frame, 1)
+        + ParamAccel.accelConvert(frame, 2);
+  }
+
+  @Benchmark public float decodeXyz() {
+    decoder.decode(frame, frame.length);
+    return decoder.xyz[0] + decoder.xyz[1] + decoder.xyz[2];
+  }
+}
@@ -0,0 +1,68 @@
+package li.vin.my.deviceservice;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Representative raw characteristic values for every registered {@link Params} field. */
+/*package*/ final class Frames {
+  private static final Charset ASCII = Charset.forName("ASCII");
+  private static final Map<String, String> FRAMES = new HashMap<>();
+
+  static {
+    // x = 0x0040, y = 0xFFC0, z = 0x4000, trailing collision flag.
+    FRAMES.put("ACCEL_RAW", "0040FFC0400000");
+    FRAMES.put("ACCEL_X", "0040FFC0400000");
+    FRAMES.put("ACCEL_Y", "0040FFC0400000");
+    FRAMES.put("ACCEL_Z", "0040FFC0400000");
+    FRAMES.put("COLLISION", "0040FFC0400001");
+    FRAMES.put("CHIP_ID", "3a9f0c2e71b4");
+    FRAMES.put("DTCS", "P0300,P0171,P0420");
+    FRAMES.put("VIN", "1HGCM82633A004352");
+    FRAMES.put("PIDS", "BE3FA813A005B011FED00400");
+    FRAMES.put("RAW_STREAM", "410C1AF8\r");
+    FRAMES.put("RAW_RPM", "410C1AF8\r");
+
+    FRAMES.put("CALCULATED_LOAD_VALUE", "410480\r");
+    FRAMES.put("CONTROL_MODULE_VOLTAGE", "41423A98\r");
+    FRAMES.put("COOLANT_TEMP_C", "41057B\r");
+    FRAMES.put("COOLANT_TEMP_F", "41057B\r");
+    FRAMES.put("FUEL_LEVEL_INPUT", "412F80\r");
+    FRAMES.put("MASS_AIRFLOW", "41100190\r");
+    FRAMES.put("MASS_AIRFLOW_DOS", "4166030190\r");
+    FRAMES.put("RPM", "410C1AF8\r");
+    FRAMES.put("RUNTIME_SINCE_ENGINE_START", "411F0102\r");
+    FRAMES.put("SPEED_KPH", "410D3C\r");
+    FRAMES.put("SPEED_MPH", "410D3C\r");
+    for (String bank : new String[] { "1", "2" }) {
+      for (String sensor : new String[] { "A", "B", "C", "D" }) {
+        final int pid = 0x24 + (bank.equals("1") ? 0 : 4) + (sensor.charAt(0) - 'A');
+        final String frame = "41" + Integer.toHexString(pid).toUpperCase() + "80006666\r";
+        FRAMES.put("O2S_" + bank + sensor + "_EQUIVALENCE_RATIO", frame);
+        FRAMES.put("O2S_" + bank + sensor + "_VOLTAGE", frame);
+      }
+    }
+
+    FRAMES.put("POWER_STATUS", "P1\r");
+    FRAMES.put("CONNECTION_STATUS", "C1\r");
+    FRAMES.put("GPS_STATUS", "G1\r");
+    FRAMES.put("CONNECTION_TYPE", "S:LTE,42\r");
+    FRAMES.put("CONNECTION_STRENGTH", "S:LTE,42\r");
+    FRAMES.put("BLE_VERSION", "SVER:1.2.3\r");
+    FRAMES.put("BATTERY_VOLTAGE", "B:08C0\r");
+  }
+
+  /** A characteristic holding the sample frame for the Param registered as {@code name}. */
+  /*package*/ static BluetoothGattCharacteristic characteristic(String name) {
+    final String frame = FRAMES.get(name);
+    if (frame == null) throw new IllegalArgumentException("no sample frame for " + name);
+    final BluetoothGattCharacteristic c =
+        new BluetoothGattCharacteristic(((ParamImpl<?, ?>) Params.paramFor(name)).uuid, 0, 0);
+    c.setValue(frame.getBytes(ASCII));
+    return c;
+  }
+
+  private Frames() {
+  }
+}
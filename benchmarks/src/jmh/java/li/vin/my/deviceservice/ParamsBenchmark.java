@@ -0,0 +1,33 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/** Name / id lookups done on every op the SDK starts. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParamsBenchmark {
+  private final Param<?> pidParam = Params.getPidParam("0C");
+
+  @Benchmark public String nameFor() {
+    return Params.nameFor(Params.BATTERY_VOLTAGE);
+  }
+
+  @Benchmark public String nameForPid() {
+    return Params.nameFor(pidParam);
+  }
+
+  @Benchmark public Param<?> paramFor() {
+    return Params.paramFor("BATTERY_VOLTAGE");
+  }
+
+  @Benchmark public int idFor() {
+    return Params.idFor(Params.BATTERY_VOLTAGE);
+  }
+}
@@ -0,0 +1,62 @@
+package li.vin.my.deviceservice;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The per-notification parse path for every registered Param: {@code parseCharacteristic}, then
+ * {@code matches} and {@code parseVal}, as the device service runs it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark {
+  @Param({
+      "ACCEL_RAW", "ACCEL_X", "ACCEL_Y", "ACCEL_Z", "CALCULATED_LOAD_VALUE", "CHIP_ID",
+      "COLLISION", "CONTROL_MODULE_VOLTAGE", "COOLANT_TEMP_C", "COOLANT_TEMP_F", "DTCS",
+      "FUEL_LEVEL_INPUT", "MASS_AIRFLOW", "MASS_AIRFLOW_DOS", "O2S_1A_EQUIVALENCE_RATIO",
+      "O2S_1A_VOLTAGE", "O2S_1B_EQUIVALENCE_RATIO", "O2S_1B_VOLTAGE", "O2S_1C_EQUIVALENCE_RATIO",
+      "O2S_1C_VOLTAGE", "O2S_1D_EQUIVALENCE_RATIO", "O2S_1D_VOLTAGE", "O2S_2A_EQUIVALENCE_RATIO",
+      "O2S_2A_VOLTAGE", "O2S_2B_EQUIVALENCE_RATIO", "O2S_2B_VOLTAGE", "O2S_2C_EQUIVALENCE_RATIO",
+      "O2S_2C_VOLTAGE", "O2S_2D_EQUIVALENCE_RATIO", "O2S_2D_VOLTAGE", "RPM",
+      "RUNTIME_SINCE_ENGINE_START", "SPEED_KPH", "SPEED_MPH", "VIN", "PIDS", "POWER_STATUS",
+      "CONNECTION_STATUS", "GPS_STATUS", "CONNECTION_TYPE", "CONNECTION_STRENGTH", "BLE_VERSION",
+      "BATTERY_VOLTAGE", "RAW_STREAM", "RAW_RPM"
+  })
+  public String name;
+
+  private ParamImpl<Object, Object> param;
+  private BluetoothGattCharacteristic characteristic;
+  private Object input;
+
+  @SuppressWarnings("unchecked")
+  @Setup public void setUp() {
+    param = (ParamImpl<Object, Object>) Params.paramFor(name);
+    characteristic = Frames.characteristic(name);
+    input = param.parseCharacteristic(characteristic);
+    if (!param.matches(input) || param.parseVal(input) == null) {
+      throw new IllegalStateException("sample frame for " + name + " doesn't parse");
+    }
+  }
+
+  @Benchmark public Object parseCharacteristic() {
+    return param.parseCharacteristic(characteristic);
+  }
+
+  @Benchmark public Object parseVal() {
+    return param.parseVal(input);
+  }
+
+  @Benchmark public Object parseFrame() {
+    final Object in = param.parseCharacteristic(characteristic);
+    return param.matches(in) ? param.parseVal(in) : null;
+  }
+}
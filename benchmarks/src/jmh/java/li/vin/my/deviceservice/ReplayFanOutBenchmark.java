@@ -0,0 +1,74 @@
+package li.vin.my.deviceservice;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Func0;
+import rx.internal.operators.OperatorReplayFix;
+import rx.subjects.PublishSubject;
+import rx.subscriptions.CompositeSubscription;
+
+/**
+ * Cost of one value through the shared op chain {@code BtLeDeviceConnection} builds - replay of
+ * the latest value, ref counted with a linger - to {@code fanOut} subscribers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReplayFanOutBenchmark {
+  // no linger, like a connection that hasn't had setLinger called.
+  private static final Func0<Long> NO_LINGER = new Func0<Long>() {
+    @Override public Long call() {
+      return 0L;
+    }
+  };
+
+  @Param({ "1", "4", "16" })
+  public int fanOut;
+
+  private PublishSubject<Float> source;
+  private CompositeSubscription subscriptions;
+  private float value;
+
+  @Setup public void setUp(final Blackhole bh) {
+    source = PublishSubject.create();
+    final Observable<Float> shared = OnSubscribeRefCountLinger.refCount(
+        OperatorReplayFix.create(source.onBackpressureLatest(), 1),
+        new Handler(Looper.getMainLooper()), NO_LINGER);
+    subscriptions = new CompositeSubscription();
+    for (int i = 0; i < fanOut; i++) {
+      subscriptions.add(shared.subscribe(new Subscriber<Float>() {
+        @Override public void onCompleted() {
+        }
+
+        @Override public void onError(Throwable e) {
+          throw new IllegalStateException(e);
+        }
+
+        @Override public void onNext(Float val) {
+          bh.consume(val);
+        }
+      }));
+    }
+  }
+
+  @TearDown public void tearDown() {
+    subscriptions.unsubscribe();
+  }
+
+  @Benchmark public void emit() {
+    source.onNext(value += 1f);
+  }
+}
@@ -0,0 +1,43 @@
+package li.vin.my.deviceservice;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** The String-based parse path against the byte-level decoders for numeric stream Params. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StreamDecodeBenchmark {
+  @Param({
+      "RPM", "SPEED_KPH", "SPEED_MPH", "COOLANT_TEMP_C", "MASS_AIRFLOW",
+      "O2S_1A_EQUIVALENCE_RATIO", "BATTERY_VOLTAGE"
+  })
+  public String name;
+
+  private ParamStream<?> param;
+  private BluetoothGattCharacteristic characteristic;
+
+  @Setup public void setUp() {
+    param = (ParamStream<?>) Params.paramFor(name);
+    characteristic = Frames.characteristic(name);
+  }
+
+  @Benchmark public Object viaString() {
+    final String in = param.parseCharacteristic(characteristic);
+    return param.matches(in) ? param.parseVal(in) : null;
+  }
+
+  @Benchmark public float viaBytes() {
+    return param instanceof ParamStreamFloat
+        ? ((ParamStreamFloat) param).parseFloat(characteristic)
+        : ((ParamStreamInt) param).parseInt(characteristic);
+  }
+}
@@ -0,0 +1,37 @@
+package li.vin.my.deviceservice;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SupportedPidsBenchmark {
+  private static final String RAW = "BE3FA813A005B011FED00400";
+
+  private SupportedPids pids;
+  private int pid;
+
+  @Setup public void setUp() {
+    pids = new SupportedPids(RAW);
+  }
+
+  @Benchmark public SupportedPids parse() {
+    return new SupportedPids(RAW);
+  }
+
+  @Benchmark public boolean supportsParam() throws SupportedPids.InvalidParamException {
+    return pids.supports(Params.RPM);
+  }
+
+  @Benchmark public boolean supportsPid() {
+    pid = (pid + 1) & 0xff;
+    return pids.supports(pid);
+  }
+}
@@ -0,0 +1,471 @@
+package li.vin.my.deviceservice;
+
+import android.content.ComponentName;
+import android.content.ServiceConnection;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the My Vinli device service, for soak and throughput testing {@link
+ * BtLeDeviceConnection} on a plain JVM. Every op emits synthetic values at a configurable rate,
+ * with optional jitter, and can inject errors and service disconnects.
+ * <p>
+ * It doubles as the connection's {@link BtLeDeviceConnection.ServiceBinder}:
+ * <pre>
+ *   FakeDevServ serv = FakeDevServ.create().rateHz(50).jitter(0.2f);
+ *   DeviceConnection conn = new BtLeDeviceConnection(serv, "chip", "fake", null, "fake");
+ * </pre>
+ */
+public final class FakeDevServ extends IDevServ.Stub
+    implements BtLeDeviceConnection.ServiceBinder {
+  /** Emit as fast as the callbacks return. */
+  public static final double MAX_RATE = Double.POSITIVE_INFINITY;
+
+  // unpaced ops emit this many values per turn so they share the executor fairly.
+  private static final int UNPACED_BURST = 256;
+
+  private final ScheduledExecutorService executor;
+  private final ConcurrentHashMap<String, Op> ops = new ConcurrentHashMap<>();
+  private final Random random = new Random();
+
+  private volatile double rateHz = 10;
+  private volatile float jitter;
+  private volatile double errorProbability;
+  private volatile double disconnectProbability;
+  private volatile int capabilities = ServiceCapabilities.BATCH | ServiceCapabilities.DEADBAND;
+  private volatile String supportedPids = "BE3FA813A005B011FED00400";
+  private volatile ServiceConnection conn;
+
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong suppressed = new AtomicLong();
+  private final AtomicLong opsStarted = new AtomicLong();
+  private final AtomicLong opsCancelled = new AtomicLong();
+  private final AtomicInteger binds = new AtomicInteger();
+  private final AtomicInteger disconnects = new AtomicInteger();
+
+  public static @NonNull FakeDevServ create() {
+    return new FakeDevServ(Runtime.getRuntime().availableProcessors());
+  }
+
+  private FakeDevServ(int threads) {
+    executor = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override public Thread newThread(@NonNull Runnable r) {
+        Thread t = new Thread(r, "FakeDevServ-" + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /** Values per second for every op started from now on, or {@link #MAX_RATE}. */
+  public FakeDevServ rateHz(double rateHz) {
+    if (!(rateHz > 0)) throw new IllegalArgumentException("rateHz must be > 0");
+    this.rateHz = rateHz;
+    return this;
+  }
+
+  /** Spread each interval uniformly by +/- this fraction of the period. */
+  public FakeDevServ jitter(float jitter) {
+    if (jitter < 0 || jitter > 1) throw new IllegalArgumentException("jitter must be in [0, 1]");
+    this.jitter = jitter;
+    return this;
+  }
+
+  /** Chance, per value, that the op ends with an error instead. */
+  public FakeDevServ errorProbability(double errorProbability) {
+    this.errorProbability = errorProbability;
+    return this;
+  }
+
+  /** Chance, per value, that the whole service disconnects instead. */
+  public FakeDevServ disconnectProbability(double disconnectProbability) {
+    this.disconnectProbability = disconnectProbability;
+    return this;
+  }
+
+  /** The {@link ServiceCapabilities} bits to advertise. Batching and deadbands by default. */
+  public FakeDevServ capabilities(int capabilities) {
+    this.capabilities = capabilities;
+    return this;
+  }
+
+  /** The raw hex served for {@link Params#PIDS}. */
+  public FakeDevServ supportedPids(@NonNull String supportedPids) {
+    this.supportedPids = supportedPids;
+    return this;
+  }
+
+  /** Values delivered to callbacks so far. */
+  public long delivered() {
+    return delivered.get();
+  }
+
+  /** Values held back by a deadband op instead of being delivered. */
+  public long suppressed() {
+    return suppressed.get();
+  }
+
+  public long opsStarted() {
+    return opsStarted.get();
+  }
+
+  public long opsCancelled() {
+    return opsCancelled.get();
+  }
+
+  /** Ops the client hasn't cancelled yet - should drop back to 0 once everything unsubscribes. */
+  public int activeOps() {
+    return ops.size();
+  }
+
+  public int binds() {
+    return binds.get();
+  }
+
+  public int disconnects() {
+    return disconnects.get();
+  }
+
+  public boolean isBound() {
+    return conn != null;
+  }
+
+  /** Drop the connection now, as if the service process died. */
+  public void disconnect() {
+    final ServiceConnection c = conn;
+    conn = null;
+    if (c == null) return;
+    disconnects.incrementAndGet();
+    for (Op op : ops.values()) op.stop();
+    ops.clear();
+    c.onServiceDisconnected(new ComponentName());
+  }
+
+  /** Stop every op and the emitting threads. */
+  public void shutdown() {
+    for (Op op : ops.values()) op.stop();
+    ops.clear();
+    executor.shutdownNow();
+  }
+
+  // ServiceBinder
+
+  @Override public void bind(@NonNull final ServiceConnection conn) throws Exception {
+    if (executor.isShutdown()) throw new Exception("fake service shut down.");
+    this.conn = conn;
+    binds.incrementAndGet();
+    // connect asynchronously like bindService does.
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        if (FakeDevServ.this.conn == conn) {
+          conn.onServiceConnected(new ComponentName(), asBinder());
+        }
+      }
+    });
+  }
+
+  @Override public void unbind(@NonNull ServiceConnection conn) throws Exception {
+    if (this.conn == conn) this.conn = null;
+  }
+
+  // IDevServ
+
+  @Override public String observeBool(String chipId, String name,
+      final IVinliServiceCallbackBool cb) throws RemoteException {
+    return start(new Op(name) {
+      @Override void emit(long seq) throws RemoteException {
+        cb.onNext((seq & 1) == 1);
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String observeDtc(String chipId, String name,
+      final IVinliServiceCallbackDtc cb) throws RemoteException {
+    return start(new Op(name) {
+      @Override void emit(long seq) throws RemoteException {
+        cb.onNext(Arrays.asList("P0300", "P0171"));
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String observeFloat(String chipId, String name,
+      final IVinliServiceCallbackFloat cb) throws RemoteException {
+    return start(new Op(name) {
+      @Override void emit(long seq) throws RemoteException {
+        cb.onNext(seq % 1000 / 10f);
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String observeInt(String chipId, String name,
+      final IVinliServiceCallbackInt cb) throws RemoteException {
+    return start(new Op(name) {
+      @Override void emit(long seq) throws RemoteException {
+        cb.onNext((int) (seq % 1000));
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String observeString(String chipId, final String name,
+      final IVinliServiceCallbackString cb) throws RemoteException {
+    return start(new Op(name) {
+      @Override void emit(long seq) throws RemoteException {
+        if ("PIDS".equals(name)) {
+          cb.onNext(supportedPids);
+        } else if ("RAW_STREAM".equals(name)) {
+          cb.onNext(String.format("410C%04X", seq & 0xffff));
+        } else if ("ACCEL_RAW".equals(name)) {
+          cb.onNext(String.format("%04X%04X%04X0%d", seq & 0xffff, 0x4000, 0,
+              seq % 1000 == 999 ? 1 : 0));
+        } else {
+          cb.onNext(name + ":" + seq);
+        }
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String resetDtcs(String chipId, final IVinliServiceCallbackBool cb)
+      throws RemoteException {
+    return start(new Op("resetDtcs") {
+      @Override void emit(long seq) throws RemoteException {
+        cb.onNext(true);
+        cb.onCompleted();
+        stop();
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String discover(final IVinliServiceCallbackDtc cb) throws RemoteException {
+    return start(new Op("discover") {
+      @Override void emit(long seq) throws RemoteException {
+        cb.onNext(Collections.singletonList("fake"));
+        cb.onCompleted();
+        stop();
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public void cancelOp(String uuid) throws RemoteException {
+    final Op op = uuid == null
+        ? null
+        : ops.remove(uuid);
+    if (op == null) return;
+    opsCancelled.incrementAndGet();
+    op.stop();
+  }
+
+  @Override public int capabilities() throws RemoteException {
+    return capabilities;
+  }
+
+  @Override public String observeBatch(String chipId, final String[] names, final int maxBatchSize,
+      long maxLatencyMs, final IVinliServiceCallbackBatch cb) throws RemoteException {
+    if ((capabilities & ServiceCapabilities.BATCH) == 0) return null;
+    // one value per name per tick, flushed every maxBatchSize values.
+    return start(new Op("batch") {
+      private final int[] ids = new int[maxBatchSize];
+      private final float[] values = new float[maxBatchSize];
+      private final long[] timestamps = new long[maxBatchSize];
+      private int size;
+
+      @Override void emit(long seq) throws RemoteException {
+        final long now = SystemClock.elapsedRealtimeNanos();
+        for (int id = 0; id < names.length; id++) {
+          ids[size] = id;
+          values[size] = seq % 1000 / 10f;
+          timestamps[size] = now;
+          if (++size == maxBatchSize) {
+            cb.onBatch(ids.clone(), values.clone(), timestamps.clone());
+            size = 0;
+          }
+        }
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String observeRing(String chipId, String[] names, int capacity,
+      int maxBatchSize, long maxLatencyMs, IVinliServiceCallbackRing cb) throws RemoteException {
+    return null;
+  }
+
+  @Override public String observeFloatDeadband(String chipId, String name, float deadband,
+      long deadTimeMs, final IVinliServiceCallbackFloat cb) throws RemoteException {
+    if ((capabilities & ServiceCapabilities.DEADBAND) == 0) return null;
+    final DeadbandFilter filter = new DeadbandFilter(Deadband.of(deadband)
+        .withDeadTime(deadTimeMs, TimeUnit.MILLISECONDS));
+    return start(new Op(name) {
+      @Override void emit(long seq) throws RemoteException {
+        final float val = seq % 1000 / 10f;
+        if (filter.accept(val, SystemClock.elapsedRealtime())) {
+          cb.onNext(val);
+        } else {
+          skip();
+        }
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  @Override public String observeIntDeadband(String chipId, String name, float deadband,
+      long deadTimeMs, final IVinliServiceCallbackInt cb) throws RemoteException {
+    if ((capabilities & ServiceCapabilities.DEADBAND) == 0) return null;
+    final DeadbandFilter filter = new DeadbandFilter(Deadband.of(deadband)
+        .withDeadTime(deadTimeMs, TimeUnit.MILLISECONDS));
+    return start(new Op(name) {
+      @Override void emit(long seq) throws RemoteException {
+        final int val = (int) (seq % 1000);
+        if (filter.accept(val, SystemClock.elapsedRealtime())) {
+          cb.onNext(val);
+        } else {
+          skip();
+        }
+      }
+
+      @Override void error(String err) throws RemoteException {
+        cb.onError(err);
+      }
+    });
+  }
+
+  private String start(Op op) {
+    final String uuid = UUID.randomUUID().toString();
+    op.uuid = uuid;
+    ops.put(uuid, op);
+    opsStarted.incrementAndGet();
+    op.periodNanos = rateHz == MAX_RATE
+        ? 0
+        : (long) (TimeUnit.SECONDS.toNanos(1) / rateHz);
+    executor.execute(op);
+    return uuid;
+  }
+
+  private long nextDelayNanos(long periodNanos) {
+    final float j = jitter;
+    if (j == 0) return periodNanos;
+    final double spread;
+    synchronized (random) {
+      spread = random.nextDouble() * 2 - 1;
+    }
+    return (long) (periodNanos * (1 + j * spread));
+  }
+
+  private boolean roll(double probability) {
+    if (probability <= 0) return false;
+    synchronized (random) {
+      return random.nextDouble() < probability;
+    }
+  }
+
+  /** One running op: emits until cancelled, stopped, or an injected failure. */
+  private abstract class Op implements Runnable {
+    private final String name;
+    private String uuid;
+    private long periodNanos;
+    private long seq;
+    private volatile boolean stopped;
+    private boolean skipped;
+
+    private Op(String name) {
+      this.name = name;
+    }
+
+    abstract void emit(long seq) throws RemoteException;
+
+    abstract void error(String err) throws RemoteException;
+
+    /*package*/ final void stop() {
+      stopped = true;
+    }
+
+    /** Called from emit when it held the value back. */
+    /*package*/ final void skip() {
+      skipped = true;
+    }
+
+    @Override public final void run() {
+      try {
+        for (int i = periodNanos == 0 ? UNPACED_BURST : 1; i > 0 && !stopped; i--) {
+          if (roll(disconnectProbability)) {
+            disconnect();
+            return;
+          }
+          if (roll(errorProbability)) {
+            stopped = true;
+            ops.remove(uuid);
+            error("injected error in " + name);
+            return;
+          }
+          emit(seq++);
+          if (skipped) {
+            skipped = false;
+            suppressed.incrementAndGet();
+          } else {
+            delivered.incrementAndGet();
+          }
+        }
+      } catch (RemoteException | RuntimeException e) {
+        stopped = true;
+        ops.remove(uuid);
+        return;
+      }
+      if (stopped) {
+        ops.remove(uuid);
+        return;
+      }
+      if (periodNanos == 0) {
+        executor.execute(this);
+      } else {
+        executor.schedule(this, nextDelayNanos(periodNanos), TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+}
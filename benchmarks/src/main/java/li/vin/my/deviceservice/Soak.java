@@ -0,0 +1,159 @@
+package li.vin.my.deviceservice;
+
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.subscriptions.CompositeSubscription;
+
+/**
+ * Soak and throughput harness for {@link BtLeDeviceConnection} over a {@link FakeDevServ}, on a
+ * plain JVM. Run with {@code ./gradlew :benchmarks:soak}, optionally passing
+ * {@code -Pcycles=N -Pseconds=N}.
+ * <ol>
+ *   <li>subscribe / unsubscribe cycles over random sets of Params, then checks every service op
+ *   was cancelled and the binding shut down</li>
+ *   <li>sustained callback throughput with the fake emitting as fast as it can</li>
+ *   <li>the same under injected op errors and service disconnects</li>
+ * </ol>
+ * Exits non-zero if any check fails.
+ */
+public final class Soak {
+  private static final List<Param<?>> PARAMS = Arrays.<Param<?>>asList(Params.RPM,
+      Params.SPEED_KPH, Params.SPEED_MPH, Params.COOLANT_TEMP_C, Params.MASS_AIRFLOW,
+      Params.FUEL_LEVEL_INPUT, Params.BATTERY_VOLTAGE, Params.POWER_STATUS,
+      Params.CONNECTION_STRENGTH, Params.RAW_STREAM);
+
+  private static int failures;
+
+  public static void main(String[] args) throws Exception {
+    final int cycles = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+    final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    cycles(cycles);
+    throughput(seconds, 0, 0);
+    throughput(seconds, 1e-4, 1e-5);
+
+    System.out.println(failures == 0 ? "OK" : failures + " check(s) failed");
+    System.exit(failures == 0 ? 0 : 1);
+  }
+
+  private static void cycles(int cycles) throws InterruptedException {
+    final FakeDevServ serv = FakeDevServ.create().rateHz(200).jitter(0.5f);
+    final BtLeDeviceConnection conn = connect(serv);
+    final Random random = new Random(1);
+    final AtomicLong received = new AtomicLong();
+    final LatencyHistogram firstValue = new LatencyHistogram();
+    conn.setMetricsListener(new OpMetrics.Listener() {
+      @Override public void onOpClosed(@NonNull OpMetrics metrics) {
+        firstValue.record(metrics.timeToFirstValueNanos());
+      }
+    });
+    int timeouts = 0;
+
+    final long start = System.nanoTime();
+    for (int i = 0; i < cycles; i++) {
+      final int n = 1 + random.nextInt(PARAMS.size());
+      final CountDownLatch firstValues = new CountDownLatch(n);
+      final CompositeSubscription subs = new CompositeSubscription();
+      for (int p = 0; p < n; p++) {
+        subs.add(conn.observe(PARAMS.get(random.nextInt(PARAMS.size())))
+            .subscribe(new Counter(received, firstValues)));
+      }
+      if (!firstValues.await(5, TimeUnit.SECONDS)) timeouts++;
+      subs.unsubscribe();
+    }
+    final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    awaitIdle(serv);
+    System.out.printf("cycles: %d in %d ms (%.0f/s), %d values, ops started %d, cancelled %d%n",
+        cycles, elapsedMs, cycles * 1000f / Math.max(1, elapsedMs), received.get(),
+        serv.opsStarted(), serv.opsCancelled());
+    System.out.println("  time to first value: " + firstValue);
+    check(timeouts == 0, timeouts + " cycle(s) never got a first value");
+    check(serv.activeOps() == 0, serv.activeOps() + " service op(s) leaked");
+    check(!serv.isBound(), "binding still up after everything unsubscribed");
+    serv.shutdown();
+  }
+
+  private static void throughput(int seconds, double errorProbability,
+      double disconnectProbability) throws InterruptedException {
+    final FakeDevServ serv = FakeDevServ.create()
+        .rateHz(FakeDevServ.MAX_RATE)
+        .errorProbability(errorProbability)
+        .disconnectProbability(disconnectProbability);
+    final BtLeDeviceConnection conn = connect(serv);
+    final AtomicLong received = new AtomicLong();
+
+    final List<Subscription> subs = new ArrayList<>();
+    for (Param<?> param : PARAMS) {
+      // injected op errors end the subscription, so resubscribe like an app would.
+      subs.add(conn.observe(param).retry().subscribe(new Counter(received, null)));
+    }
+    final long startDelivered = serv.delivered();
+    final long startReceived = received.get();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+    final long delivered = serv.delivered() - startDelivered;
+    final long got = received.get() - startReceived;
+    long dropped = 0;
+    for (OpMetrics metrics : conn.opMetrics()) dropped += metrics.dropped();
+    for (Subscription sub : subs) sub.unsubscribe();
+
+    awaitIdle(serv);
+    System.out.printf("throughput (errors %s, disconnects %s): %d callbacks/s, %d values/s "
+            + "received, %d dropped, %d disconnects%n", errorProbability, disconnectProbability,
+        delivered / seconds, got / seconds, dropped, serv.disconnects());
+    check(got > 0, "no values received");
+    check(serv.activeOps() == 0, serv.activeOps() + " service op(s) leaked");
+    serv.shutdown();
+  }
+
+  private static BtLeDeviceConnection connect(FakeDevServ serv) {
+    return new BtLeDeviceConnection(serv, "fake-chip", "fake", null, "fake");
+  }
+
+  // cancels and the shutdown are posted, so give them a moment to land.
+  private static void awaitIdle(FakeDevServ serv) throws InterruptedException {
+    for (int i = 0; i < 100 && (serv.activeOps() > 0 || serv.isBound()); i++) Thread.sleep(20);
+  }
+
+  private static void check(boolean ok, String failure) {
+    if (ok) return;
+    failures++;
+    System.out.println("FAILED: " + failure);
+  }
+
+  private static final class Counter extends Subscriber<Object> {
+    private final AtomicLong received;
+    private final CountDownLatch first;
+    private boolean counted;
+
+    private Counter(AtomicLong received, CountDownLatch first) {
+      this.received = received;
+      this.first = first;
+    }
+
+    @Override public void onCompleted() {
+    }
+
+    @Override public void onError(Throwable e) {
+    }
+
+    @Override public void onNext(Object val) {
+      received.incrementAndGet();
+      if (first != null && !counted) {
+        counted = true;
+        first.countDown();
+      }
+    }
+  }
+
+  private Soak() {
+  }
+}
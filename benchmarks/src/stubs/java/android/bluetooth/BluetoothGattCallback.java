@@ -0,0 +1,4 @@
+package android.bluetooth;
+
+public abstract class BluetoothGattCallback {
+}
@@ -0,0 +1,25 @@
+package android.bluetooth;
+
+import java.util.UUID;
+
+public class BluetoothGattCharacteristic {
+  private final UUID uuid;
+  private byte[] value;
+
+  public BluetoothGattCharacteristic(UUID uuid, int properties, int permissions) {
+    this.uuid = uuid;
+  }
+
+  public UUID getUuid() {
+    return uuid;
+  }
+
+  public byte[] getValue() {
+    return value;
+  }
+
+  public boolean setValue(byte[] value) {
+    this.value = value;
+    return true;
+  }
+}
@@ -0,0 +1,13 @@
+package android.content;
+
+public abstract class Context {
+  public static final int BIND_AUTO_CREATE = 0x0001;
+
+  public abstract Context getApplicationContext();
+
+  public abstract String getString(int resId);
+
+  public abstract boolean bindService(Intent service, ServiceConnection conn, int flags);
+
+  public abstract void unbindService(ServiceConnection conn);
+}
@@ -0,0 +1,7 @@
+package android.content;
+
+public class Intent {
+  public Intent setClassName(String packageName, String className) {
+    return this;
+  }
+}
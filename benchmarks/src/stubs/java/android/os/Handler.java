@@ -0,0 +1,66 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class Handler {
+  private final Looper looper;
+  private final Map<Runnable, List<Future<?>>> pending = new IdentityHashMap<>();
+
+  public Handler() {
+    this(Looper.getMainLooper());
+  }
+
+  public Handler(Looper looper) {
+    this.looper = looper;
+  }
+
+  public final Looper getLooper() {
+    return looper;
+  }
+
+  public final boolean post(Runnable r) {
+    return postDelayed(r, 0);
+  }
+
+  public final boolean postDelayed(final Runnable r, long delayMillis) {
+    final Future<?>[] self = new Future<?>[1];
+    Runnable wrapped = new Runnable() {
+      @Override public void run() {
+        synchronized (pending) {
+          List<Future<?>> futures = pending.get(r);
+          if (futures != null) {
+            futures.remove(self[0]);
+            if (futures.isEmpty()) pending.remove(r);
+          }
+        }
+        r.run();
+      }
+    };
+    synchronized (pending) {
+      try {
+        self[0] = looper.executor.schedule(wrapped, Math.max(0, delayMillis),
+            TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        return false;
+      }
+      List<Future<?>> futures = pending.get(r);
+      if (futures == null) pending.put(r, futures = new ArrayList<>());
+      futures.add(self[0]);
+    }
+    return true;
+  }
+
+  public final void removeCallbacks(Runnable r) {
+    synchronized (pending) {
+      List<Future<?>> futures = pending.remove(r);
+      if (futures == null) return;
+      for (Future<?> f : futures) f.cancel(false);
+    }
+  }
+}
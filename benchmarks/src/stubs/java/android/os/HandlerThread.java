@@ -0,0 +1,32 @@
+package android.os;
+
+public class HandlerThread extends Thread {
+  private final Looper looper;
+
+  public HandlerThread(String name) {
+    this(name, Process.THREAD_PRIORITY_DEFAULT);
+  }
+
+  public HandlerThread(String name, int priority) {
+    super(name);
+    looper = new Looper(name);
+  }
+
+  @Override public void run() {
+    // the looper runs on its own executor thread.
+  }
+
+  public Looper getLooper() {
+    return looper;
+  }
+
+  public boolean quit() {
+    looper.quit();
+    return true;
+  }
+
+  public boolean quitSafely() {
+    looper.quitSafely();
+    return true;
+  }
+}
@@ -0,0 +1,40 @@
+package android.os;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/** JVM stand-in: a looper is a single daemon thread running posted work in order. */
+public final class Looper {
+  private static final Looper MAIN = new Looper("main");
+
+  /*package*/ final ScheduledExecutorService executor;
+  private volatile Thread thread;
+
+  /*package*/ Looper(final String name) {
+    executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      @Override public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        thread = t;
+        return t;
+      }
+    });
+  }
+
+  public static Looper getMainLooper() {
+    return MAIN;
+  }
+
+  public Thread getThread() {
+    return thread;
+  }
+
+  public void quit() {
+    executor.shutdownNow();
+  }
+
+  public void quitSafely() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,6 @@
+package android.os;
+
+public class Process {
+  public static final int THREAD_PRIORITY_DEFAULT = 0;
+  public static final int THREAD_PRIORITY_BACKGROUND = 10;
+}
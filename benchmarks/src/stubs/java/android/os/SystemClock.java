@@ -0,0 +1,20 @@
+package android.os;
+
+public final class SystemClock {
+  private static final long START = System.nanoTime();
+
+  public static long elapsedRealtimeNanos() {
+    return System.nanoTime() - START;
+  }
+
+  public static long elapsedRealtime() {
+    return elapsedRealtimeNanos() / 1000000;
+  }
+
+  public static long uptimeMillis() {
+    return elapsedRealtime();
+  }
+
+  private SystemClock() {
+  }
+}
@@ -0,0 +1,15 @@
+package android.text;
+
+public final class TextUtils {
+  public static int getTrimmedLength(CharSequence s) {
+    int len = s.length();
+    int start = 0;
+    while (start < len && s.charAt(start) <= ' ') start++;
+    int end = len;
+    while (end > start && s.charAt(end - 1) <= ' ') end--;
+    return end - start;
+  }
+
+  private TextUtils() {
+  }
+}
@@ -0,0 +1,52 @@
+package li.vin.my.deviceservice;
+
+import android.os.Binder;
+import android.os.IBinder;
+import android.os.IInterface;
+import android.os.RemoteException;
+
+/** Hand-written mirror of IDevServ.aidl; keep in sync when the AIDL changes. */
+public interface IDevServ extends IInterface {
+  String observeBool(String chipId, String name,
+      IVinliServiceCallbackBool cb) throws RemoteException;
+
+  String observeDtc(String chipId, String name, IVinliServiceCallbackDtc cb) throws RemoteException;
+
+  String observeFloat(String chipId, String name,
+      IVinliServiceCallbackFloat cb) throws RemoteException;
+
+  String observeInt(String chipId, String name, IVinliServiceCallbackInt cb) throws RemoteException;
+
+  String observeString(String chipId, String name,
+      IVinliServiceCallbackString cb) throws RemoteException;
+
+  String resetDtcs(String chipId, IVinliServiceCallbackBool cb) throws RemoteException;
+
+  String discover(IVinliServiceCallbackDtc cb) throws RemoteException;
+
+  void cancelOp(String uuid) throws RemoteException;
+
+  int capabilities() throws RemoteException;
+
+  String observeBatch(String chipId, String[] names, int maxBatchSize, long maxLatencyMs,
+      IVinliServiceCallbackBatch cb) throws RemoteException;
+
+  String observeRing(String chipId, String[] names, int capacity, int maxBatchSize,
+      long maxLatencyMs, IVinliServiceCallbackRing cb) throws RemoteException;
+
+  String observeFloatDeadband(String chipId, String name, float deadband, long deadTimeMs,
+      IVinliServiceCallbackFloat cb) throws RemoteException;
+
+  String observeIntDeadband(String chipId, String name, float deadband, long deadTimeMs,
+      IVinliServiceCallbackInt cb) throws RemoteException;
+
+  abstract class Stub extends Binder implements IDevServ {
+    public static IDevServ asInterface(IBinder binder) {
+      return binder instanceof IDevServ ? (IDevServ) binder : null;
+    }
+
+    @Override public IBinder asBinder() {
+      return this;
+    }
+  }
+}
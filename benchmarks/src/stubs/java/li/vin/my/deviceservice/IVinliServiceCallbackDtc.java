@@ -0,0 +1,22 @@
+package li.vin.my.deviceservice;
+
+import android.os.Binder;
+import android.os.IBinder;
+import android.os.IInterface;
+import android.os.RemoteException;
+import java.util.List;
+
+/** Hand-written mirror of IVinliServiceCallbackDtc.aidl; keep in sync when the AIDL changes. */
+public interface IVinliServiceCallbackDtc extends IInterface {
+  void onCompleted() throws RemoteException;
+
+  void onError(String err) throws RemoteException;
+
+  void onNext(List<String> val) throws RemoteException;
+
+  abstract class Stub extends Binder implements IVinliServiceCallbackDtc {
+    @Override public IBinder asBinder() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package li.vin.my.deviceservice;
+
+import android.os.Binder;
+import android.os.IBinder;
+import android.os.IInterface;
+import android.os.ParcelFileDescriptor;
+import android.os.RemoteException;
+
+/** Hand-written mirror of IVinliServiceCallbackRing.aidl; keep in sync when the AIDL changes. */
+public interface IVinliServiceCallbackRing extends IInterface {
+  void onCompleted() throws RemoteException;
+
+  void onError(String err) throws RemoteException;
+
+  void onRing(ParcelFileDescriptor ring) throws RemoteException;
+
+  void onAvailable(long writeSeq) throws RemoteException;
+
+  abstract class Stub extends Binder implements IVinliServiceCallbackRing {
+    @Override public IBinder asBinder() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package li.vin.my.deviceservice;
+
+import android.os.Binder;
+import android.os.IBinder;
+import android.os.IInterface;
+import android.os.RemoteException;
+
+/** Hand-written mirror of IVinliServiceCallbackString.aidl; keep in sync when the AIDL changes. */
+public interface IVinliServiceCallbackString extends IInterface {
+  void onCompleted() throws RemoteException;
+
+  void onError(String err) throws RemoteException;
+
+  void onNext(String val) throws RemoteException;
+
+  abstract class Stub extends Binder implements IVinliServiceCallbackString {
+    @Override public IBinder asBinder() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package li.vin.my.deviceservice;
+
+/** Stand-in for the generated resources the library reads. */
+public final class R {
+  public static final class string {
+    public static final int my_vinli_package_name = 1;
+    public static final int device_service_component_name = 2;
+  }
+}